@@ -95,14 +95,18 @@ public abstract class AbstractRegexCheck extends PythonSubscriptionCheck {
     }
     String functionFqn = calleeSymbol.fullyQualifiedName();
     if (functionFqn != null && lookedUpFunctions().containsKey(functionFqn)) {
-      FlagSet flagSet = getFlagSet(callExpression, functionFqn);
-
-      patternArgStringLiteral(callExpression)
-        .flatMap(l -> regexForStringLiteral(l, flagSet))
+      Integer flagsParameterPosition = lookedUpFunctions().get(functionFqn);
+      // The pattern and flags of a call are resolved once per file and shared by all regex checks
+      regexContext.regexForCall(callExpression, flagsParameterPosition, call -> resolveRegex(call, flagsParameterPosition))
         .ifPresent(parseResult -> checkRegex(parseResult, callExpression));
     }
   }
 
+  private Optional<RegexParseResult> resolveRegex(CallExpression callExpression, @Nullable Integer flagsParameterPosition) {
+    FlagSet flagSet = getFlagSet(callExpression, flagsParameterPosition);
+    return patternArgStringLiteral(callExpression).flatMap(l -> regexForStringLiteral(l, flagSet));
+  }
+
   private Optional<RegexParseResult> regexForStringLiteral(StringLiteral literal, FlagSet flagSet) {
     if (shouldHandleStringLiteral(literal)) {
       return Optional.of(regexContext.regexForStringElement(literal.stringElements().get(0), flagSet));
@@ -142,9 +146,9 @@ public abstract class AbstractRegexCheck extends PythonSubscriptionCheck {
     return Optional.empty();
   }
 
-  private FlagSet getFlagSet(CallExpression callExpression, String functionFqn) {
+  private static FlagSet getFlagSet(CallExpression callExpression, @Nullable Integer flagsParameterPosition) {
     HashSet<QualifiedExpression> flags = new HashSet<>();
-    getFlagsArgValue(callExpression, lookedUpFunctions().get(functionFqn)).ifPresent(f -> flags.addAll(extractFlagExpressions(f)));
+    getFlagsArgValue(callExpression, flagsParameterPosition).ifPresent(f -> flags.addAll(extractFlagExpressions(f)));
     FlagSet flagSet = new FlagSet();
     flags.stream()
       .map(AbstractRegexCheck::mapPythonFlag)
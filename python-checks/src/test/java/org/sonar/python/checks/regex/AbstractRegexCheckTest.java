@@ -61,6 +61,32 @@ public class AbstractRegexCheckTest {
     assertThat(fileContext.getIssues()).hasSize(12);
   }
 
+  @Test
+  public void test_regex_shared_between_checks() {
+    List<RegexParseResult> results = new ArrayList<>();
+    List<RegexParseResult> otherResults = new ArrayList<>();
+    AbstractRegexCheck check = new AbstractRegexCheck() {
+      @Override
+      public void checkRegex(RegexParseResult regexParseResult, CallExpression regexFunctionCall) {
+        results.add(regexParseResult);
+      }
+    };
+    AbstractRegexCheck otherCheck = new AbstractRegexCheck() {
+      @Override
+      public void checkRegex(RegexParseResult regexParseResult, CallExpression regexFunctionCall) {
+        otherResults.add(regexParseResult);
+      }
+    };
+
+    PythonVisitorContext fileContext = TestPythonVisitorRunner.createContext(FILE);
+    SubscriptionVisitor.analyze(List.of(check, otherCheck), fileContext);
+    assertThat(results).isNotEmpty();
+    assertThat(otherResults).hasSameSizeAs(results);
+    for (int i = 0; i < results.size(); i++) {
+      assertThat(otherResults.get(i)).isSameAs(results.get(i));
+    }
+  }
+
   @Test
   public void test_flags() {
     Check check = new Check(true);
@@ -28,8 +28,11 @@ import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.plugins.python.api.IssueLocation;
@@ -43,6 +46,7 @@ import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.SubscriptionContext;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.StringElement;
 import org.sonar.plugins.python.api.tree.Token;
@@ -62,7 +66,10 @@ public class SubscriptionVisitor {
   private final EnumMap<Kind, List<SubscriptionContextImpl>> consumers = new EnumMap<>(Kind.class);
   private final PythonVisitorContext pythonVisitorContext;
   private Tree currentElement;
-  private final HashMap<String, RegexParseResult> regexCache = new HashMap<>();
+  // Parse results of the current file, shared by all checks. String elements are compared by identity: parse results hold their locations.
+  private final Map<StringElement, Map<Integer, RegexParseResult>> regexCache = new HashMap<>();
+  // Regexes used by calls of the current file, by position of the flags parameter
+  private final Map<CallExpression, Map<Integer, Optional<RegexParseResult>>> regexCallCache = new HashMap<>();
 
   public static void analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext) {
     SubscriptionVisitor subscriptionVisitor = new SubscriptionVisitor(checks, pythonVisitorContext);
@@ -183,8 +190,15 @@ public class SubscriptionVisitor {
     }
 
     public RegexParseResult regexForStringElement(StringElement stringElement, FlagSet flagSet) {
-      return regexCache.computeIfAbsent(stringElement.hashCode() + "-" + flagSet.getMask(),
-        s -> new RegexParser(new PythonAnalyzerRegexSource(stringElement), flagSet).parse());
+      return regexCache.computeIfAbsent(stringElement, s -> new HashMap<>())
+        .computeIfAbsent(flagSet.getMask(), m -> new RegexParser(new PythonAnalyzerRegexSource(stringElement), flagSet).parse());
+    }
+
+    @Override
+    public Optional<RegexParseResult> regexForCall(CallExpression callExpression, @Nullable Integer flagsParameterPosition,
+      Function<CallExpression, Optional<RegexParseResult>> resolver) {
+      return regexCallCache.computeIfAbsent(callExpression, c -> new HashMap<>())
+        .computeIfAbsent(flagsParameterPosition, p -> resolver.apply(callExpression));
     }
   }
 }
@@ -22,13 +22,33 @@ package org.sonar.python.caching;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.python.TokenLocation;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonPunctuator;
 
 public class CpdSerializer {
 
+  /**
+   * Strings which are common to all files of a project. They are not written in the per-file string tables: the indexes
+   * of the strings specific to a file start after them. Any change to this list changes the serialization format: each
+   * record therefore starts with {@link #SHARED_STRINGS_HASH}, and records written with other shared strings are rejected.
+   */
+  static final List<String> SHARED_STRINGS = Stream.of(
+      Arrays.stream(PythonKeyword.values()).map(PythonKeyword::getValue),
+      Arrays.stream(PythonPunctuator.values()).map(PythonPunctuator::getValue),
+      Stream.of("self", "cls", "__init__", "print", "len", "isinstance", "str", "int", "0", "1", "\n", ""))
+    .flatMap(strings -> strings)
+    .distinct()
+    .collect(Collectors.toUnmodifiableList());
+
+  static final int SHARED_STRINGS_HASH = SHARED_STRINGS.hashCode();
+
   private CpdSerializer() {
     // Prevent instantiation
   }
@@ -54,36 +74,49 @@ public class CpdSerializer {
     }
   }
 
-  public static class SerializationResult {
-    public final byte[] data;
-    public final byte[] stringTable;
-
-    public SerializationResult(byte[] data, byte[] stringTable) {
-      this.data = data;
-      this.stringTable = stringTable;
-    }
+  @FunctionalInterface
+  public interface TokenConsumer {
+    void accept(int startLine, int startLineOffset, int endLine, int endLineOffset, String value);
   }
 
-  public static SerializationResult serialize(List<Token> tokens) throws IOException {
+  /**
+   * Serializes the tokens into a single record: the hash of the shared strings comes first, followed by the string table
+   * and by the tokens referencing it.
+   * Only the strings which are not part of {@link #SHARED_STRINGS} are written in the string table.
+   */
+  public static byte[] serialize(List<Token> tokens) throws IOException {
     return new Serializer().convert(tokens);
   }
 
-  public static List<TokenInfo> deserialize(byte[] dataBytes, byte[] stringTableBytes) throws IOException {
-    return new Deserializer(new VarLengthInputStream(dataBytes), new VarLengthInputStream(stringTableBytes)).convert();
+  public static List<TokenInfo> deserialize(byte[] bytes) throws IOException {
+    List<TokenInfo> cpdTokens = new ArrayList<>();
+    deserialize(bytes, (startLine, startLineOffset, endLine, endLineOffset, value) ->
+      cpdTokens.add(new TokenInfo(startLine, startLineOffset, endLine, endLineOffset, value)));
+    return cpdTokens;
+  }
+
+  /**
+   * Decodes the tokens one by one and passes them to the consumer, without materializing them.
+   * As the consumer is called before the whole record has been read, it may have received some tokens when an exception
+   * is thrown because the record is corrupted.
+   */
+  public static void deserialize(byte[] bytes, TokenConsumer consumer) throws IOException {
+    new Deserializer(new VarLengthInputStream(bytes)).convert(consumer);
   }
 
   private static class Serializer {
     private final ByteArrayOutputStream stream;
     private final VarLengthOutputStream out;
     private final StringTable stringTable;
+    private int previousStartLine = 0;
 
     private Serializer() {
       stream = new ByteArrayOutputStream();
       out = new VarLengthOutputStream(stream);
-      stringTable = new StringTable();
+      stringTable = new StringTable(new ArrayList<>(SHARED_STRINGS));
     }
 
-    public SerializationResult convert(List<Token> tokens) throws IOException {
+    public byte[] convert(List<Token> tokens) throws IOException {
       try (out; stream) {
         writeInt(tokens.size());
         for (Token token : tokens) {
@@ -91,17 +124,26 @@ public class CpdSerializer {
         }
         out.writeUTF("END");
 
-        return new SerializationResult(stream.toByteArray(), writeStringTable());
+        ByteArrayOutputStream record = writeStringTable();
+        stream.writeTo(record);
+        return record.toByteArray();
       }
     }
 
+    /**
+     * Lines are delta-encoded: the start line relatively to the start line of the previous token, and the end line
+     * relatively to the start line. The end offset of a single-line token is written as the length of the token.
+     */
     private void write(Token token) throws IOException {
       TokenLocation location = new TokenLocation(token);
-      writeInt(location.startLine());
+      int startLine = location.startLine();
+      int endLine = location.endLine();
+      writeInt(startLine - previousStartLine);
       writeInt(location.startLineOffset());
-      writeInt(location.endLine());
-      writeInt(location.endLineOffset());
+      writeInt(endLine - startLine);
+      writeInt(endLine == startLine ? (location.endLineOffset() - location.startLineOffset()) : location.endLineOffset());
       writeText(token.value());
+      previousStartLine = startLine;
     }
 
     private void writeText(@Nullable String text) throws IOException {
@@ -112,58 +154,51 @@ public class CpdSerializer {
       out.writeInt(number);
     }
 
-    private byte[] writeStringTable() throws IOException {
+    private ByteArrayOutputStream writeStringTable() throws IOException {
       ByteArrayOutputStream stringTableStream = new ByteArrayOutputStream();
       VarLengthOutputStream output = new VarLengthOutputStream(stringTableStream);
+      output.writeInt(SHARED_STRINGS_HASH);
       List<String> byIndex = stringTable.getStringList();
-      output.writeInt(byIndex.size());
-      for (String string : byIndex) {
+      List<String> fileStrings = byIndex.subList(SHARED_STRINGS.size(), byIndex.size());
+      output.writeInt(fileStrings.size());
+      for (String string : fileStrings) {
         output.writeUTF(string);
       }
 
       output.writeUTF("END");
-      return stringTableStream.toByteArray();
+      return stringTableStream;
     }
   }
 
   private static class Deserializer {
     private final VarLengthInputStream in;
-    private final VarLengthInputStream stringTableIn;
 
     private StringTable stringTable;
 
-    private Deserializer(VarLengthInputStream in, VarLengthInputStream stringTableIn) {
+    private Deserializer(VarLengthInputStream in) {
       this.in = in;
-      this.stringTableIn = stringTableIn;
     }
 
-    public List<TokenInfo> convert() throws IOException {
-      try (in; stringTableIn) {
+    public void convert(TokenConsumer consumer) throws IOException {
+      try (in) {
         stringTable = readStringTable();
         int sizeOfCpdTokens = readInt();
-        List<TokenInfo> cpdTokens = new ArrayList<>(sizeOfCpdTokens);
+        int startLine = 0;
 
         for (int i = 0; i < sizeOfCpdTokens; i++) {
-          readCpdToken(cpdTokens);
+          startLine += readInt();
+          int startLineOffset = readInt();
+          int endLine = startLine + readInt();
+          int endLineOffset = endLine == startLine ? (startLineOffset + readInt()) : readInt();
+          consumer.accept(startLine, startLineOffset, endLine, endLineOffset, readString());
         }
 
         if (!"END".equals(in.readUTF())) {
           throw new IOException("Can't read data from cache, format corrupted");
         }
-        return cpdTokens;
       }
     }
 
-    private void readCpdToken(List<TokenInfo> cpdTokens) throws IOException {
-      cpdTokens.add(new TokenInfo(
-        readInt(),
-        readInt(),
-        readInt(),
-        readInt(),
-        readString()
-      ));
-    }
-
     private int readInt() throws IOException {
       return in.readInt();
     }
@@ -173,12 +208,16 @@ public class CpdSerializer {
     }
 
     private StringTable readStringTable() throws IOException {
-      int size = stringTableIn.readInt();
-      List<String> byIndex = new ArrayList<>(size);
+      if (in.readInt() != SHARED_STRINGS_HASH) {
+        throw new IOException("Can't read data from cache, shared strings have changed");
+      }
+      int size = in.readInt();
+      List<String> byIndex = new ArrayList<>(SHARED_STRINGS.size() + size);
+      byIndex.addAll(SHARED_STRINGS);
       for (int i = 0; i < size; i++) {
-        byIndex.add(stringTableIn.readUTF());
+        byIndex.add(in.readUTF());
       }
-      if (!"END".equals(stringTableIn.readUTF())) {
+      if (!"END".equals(in.readUTF())) {
         throw new IOException("Can't read data from cache, format corrupted");
       }
       return new StringTable(byIndex);
@@ -38,6 +38,9 @@ public class VarLengthInputStream implements Closeable {
 
   public String readUTF() throws IOException {
     int length = readInt();
+    if (length < 0 || length > in.available()) {
+      throw new IOException("Invalid string length: " + length);
+    }
     byte[] bytes = new byte[length];
     in.readFully(bytes);
     return new String(bytes, StandardCharsets.UTF_8);
@@ -19,8 +19,11 @@
  */
 package org.sonar.python.regex;
 
+import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.sonar.plugins.python.api.PythonCheck;
+import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.StringElement;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonarsource.analyzer.commons.regex.RegexParseResult;
@@ -31,6 +34,13 @@ public interface RegexContext {
 
   RegexParseResult regexForStringElement(StringElement stringElement, FlagSet flagSet);
 
+  /**
+   * Returns the regex used by the given call. It is computed by {@code resolver} only once per file for a given call and position of the flags
+   * parameter, so that all regex checks share the resolution of the pattern and of the flags.
+   */
+  Optional<RegexParseResult> regexForCall(CallExpression callExpression, @Nullable Integer flagsParameterPosition,
+    Function<CallExpression, Optional<RegexParseResult>> resolver);
+
   PythonCheck.PreciseIssue addIssue(Tree element, @Nullable String message);
 
   PythonCheck.PreciseIssue addIssue(RegexSyntaxElement element, @Nullable String message);
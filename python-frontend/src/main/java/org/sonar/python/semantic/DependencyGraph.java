@@ -19,70 +19,118 @@
  */
 package org.sonar.python.semantic;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 
+/**
+ * Reverse import graph of the project: for each module, the modules importing it.
+ * Modules are identified by integer ids, so that the graph is stored as an adjacency array and traversed with a bitset.
+ */
 public class DependencyGraph {
 
-  private final Map<String, Set<String>> dependentModules;
+  private final List<String> moduleNames;
+  private final Map<String, Integer> moduleIds;
+  // Ids of the modules importing each module, indexed by module id
+  private final int[][] dependentModuleIds;
 
-  private DependencyGraph(Map<String, Set<String>> dependentModules) {
-    this.dependentModules = dependentModules;
+  private DependencyGraph(List<String> moduleNames, Map<String, Integer> moduleIds, int[][] dependentModuleIds) {
+    this.moduleNames = moduleNames;
+    this.moduleIds = moduleIds;
+    this.dependentModuleIds = dependentModuleIds;
   }
 
   public Map<String, Set<String>> dependentModules() {
-    return Collections.unmodifiableMap(dependentModules);
+    Map<String, Set<String>> result = new HashMap<>();
+    for (int id = 0; id < dependentModuleIds.length; id++) {
+      if (dependentModuleIds[id].length > 0) {
+        Set<String> dependentModules = new HashSet<>();
+        for (int dependentModuleId : dependentModuleIds[id]) {
+          dependentModules.add(moduleNames.get(dependentModuleId));
+        }
+        result.put(moduleNames.get(id), dependentModules);
+      }
+    }
+    return result;
   }
 
   public static DependencyGraph from(Map<String, Set<String>> importsByModule, Set<String> projectModulesFQN) {
-    Map<String, Set<String>> dependentModules = computeDependentModules(importsByModule, projectModulesFQN);
-    return new DependencyGraph(dependentModules);
-  }
-
-  private static Map<String, Set<String>> computeDependentModules(Map<String, Set<String>> importsByModule, Set<String> projectModulesFQN) {
-    Map<String, Set<String>> result = new HashMap<>();
+    List<String> moduleNames = new ArrayList<>();
+    Map<String, Integer> moduleIds = new HashMap<>();
+    List<Set<Integer>> dependentModuleIds = new ArrayList<>();
     for (var entry : importsByModule.entrySet()) {
-      entry.getValue().forEach(importedModuleFQN -> {
-        String dependentModule = entry.getKey();
-        if (projectModulesFQN.contains(importedModuleFQN)) {
-          result.computeIfAbsent(importedModuleFQN, x -> new HashSet<>()).add(dependentModule);
-          return;
+      String dependentModule = entry.getKey();
+      for (String importedModuleFQN : entry.getValue()) {
+        String importedProjectModule = importedProjectModule(importedModuleFQN, projectModulesFQN);
+        if (importedProjectModule != null) {
+          int importedModuleId = moduleId(importedProjectModule, moduleNames, moduleIds, dependentModuleIds);
+          int dependentModuleId = moduleId(dependentModule, moduleNames, moduleIds, dependentModuleIds);
+          dependentModuleIds.get(importedModuleId).add(dependentModuleId);
         }
-        int endIndex = importedModuleFQN.lastIndexOf(".");
-        if (endIndex < 0) {
-          return;
-        }
-        String substring = importedModuleFQN.substring(0, endIndex);
-        if (projectModulesFQN.contains(substring)) {
-          result.computeIfAbsent(substring, x -> new HashSet<>()).add(dependentModule);
-        }
-      });
+      }
     }
-    return result;
+    int[][] adjacency = new int[dependentModuleIds.size()][];
+    for (int id = 0; id < adjacency.length; id++) {
+      adjacency[id] = dependentModuleIds.get(id).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return new DependencyGraph(moduleNames, moduleIds, adjacency);
   }
 
-  public Set<String> impactedModules(List<String> modifiedModules) {
-    Set<String> impactedModules = new HashSet<>();
-    for (String modifiedModuleFQN : modifiedModules) {
-      recursivelyComputeImpactedModules(modifiedModuleFQN, impactedModules);
+  /**
+   * "from A.B import foo" records "A.B.foo" as imported: the parent of the imported name is then considered as well.
+   */
+  @CheckForNull
+  private static String importedProjectModule(String importedModuleFQN, Set<String> projectModulesFQN) {
+    if (projectModulesFQN.contains(importedModuleFQN)) {
+      return importedModuleFQN;
     }
-    return impactedModules;
+    int endIndex = importedModuleFQN.lastIndexOf(".");
+    if (endIndex < 0) {
+      return null;
+    }
+    String parent = importedModuleFQN.substring(0, endIndex);
+    return projectModulesFQN.contains(parent) ? parent : null;
   }
 
-  private void recursivelyComputeImpactedModules(String changedModule, Set<String> impactedModules) {
-    if (!impactedModules.contains(changedModule)) {
-      impactedModules.add(changedModule);
-      Set<String> transitivelyImpactedModules = dependentModules.get(changedModule);
-      if (transitivelyImpactedModules == null) {
-        return;
+  private static int moduleId(String module, List<String> moduleNames, Map<String, Integer> moduleIds, List<Set<Integer>> dependentModuleIds) {
+    return moduleIds.computeIfAbsent(module, m -> {
+      moduleNames.add(m);
+      dependentModuleIds.add(new HashSet<>());
+      return moduleNames.size() - 1;
+    });
+  }
+
+  /**
+   * Computes the modified modules and all modules transitively importing them.
+   * The traversal is iterative so that long import chains cannot overflow the stack.
+   */
+  public Set<String> impactedModules(List<String> modifiedModules) {
+    Set<String> impactedModules = new HashSet<>(modifiedModules);
+    BitSet visited = new BitSet(moduleNames.size());
+    int[] toVisit = new int[moduleNames.size()];
+    int toVisitSize = 0;
+    for (String modifiedModule : modifiedModules) {
+      Integer id = moduleIds.get(modifiedModule);
+      if (id != null && !visited.get(id)) {
+        visited.set(id);
+        toVisit[toVisitSize++] = id;
       }
-      for (String transitivelyImpacted : transitivelyImpactedModules) {
-        recursivelyComputeImpactedModules(transitivelyImpacted, impactedModules);
+    }
+    while (toVisitSize > 0) {
+      int id = toVisit[--toVisitSize];
+      impactedModules.add(moduleNames.get(id));
+      for (int dependentModuleId : dependentModuleIds[id]) {
+        if (!visited.get(dependentModuleId)) {
+          visited.set(dependentModuleId);
+          toVisit[toVisitSize++] = dependentModuleId;
+        }
       }
     }
+    return impactedModules;
   }
 }
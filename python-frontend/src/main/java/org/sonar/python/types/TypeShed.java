@@ -65,6 +65,7 @@ public class TypeShed {
   private static final Map<String, Map<String, Symbol>> typeShedSymbols = new HashMap<>();
   private static final Map<String, Set<Symbol>> builtinGlobalSymbols = new HashMap<>();
   private static final Set<String> modulesInProgress = new HashSet<>();
+  private static final Set<String> modulesToLoadLazily = new HashSet<>();
 
   private static final String PROTOBUF_CUSTOM_STUBS = "custom_protobuf/";
   private static final String PROTOBUF = "stdlib_protobuf/";
@@ -161,11 +162,24 @@ public class TypeShed {
     return symbolWithFQN(moduleName, fullyQualifiedName);
   }
 
+  /**
+   * Registers modules whose symbols are not needed upfront, but should be part of {@link #stubFilesSymbols()} and {@link #stubModules()}.
+   * They are only loaded when stub symbols are actually requested.
+   */
+  public static void loadModulesLazily(Collection<String> moduleNames) {
+    moduleNames.stream().filter(m -> !typeShedSymbols.containsKey(m)).forEach(modulesToLoadLazily::add);
+  }
+
   /**
    * Returns stub symbols to be used by SonarSecurity.
    * Ambiguous symbols that only contain class symbols are disambiguated with latest Python version.
    */
   public static Collection<Symbol> stubFilesSymbols() {
+    if (!modulesToLoadLazily.isEmpty()) {
+      Set<String> moduleNames = new HashSet<>(modulesToLoadLazily);
+      modulesToLoadLazily.clear();
+      moduleNames.forEach(TypeShed::symbolsForModule);
+    }
     Set<Symbol> symbols = new HashSet<>(TypeShed.builtinSymbols().values());
     for (Map<String, Symbol> symbolsByFqn : typeShedSymbols.values()) {
       for (Symbol symbol : symbolsByFqn.values()) {
@@ -184,6 +198,7 @@ public class TypeShed {
 
   public static Set<String> stubModules() {
     Set<String> modules = new HashSet<>();
+    modulesToLoadLazily.stream().filter(m -> !typeShedSymbols.containsKey(m)).forEach(modules::add);
     for (Map.Entry<String, Map<String, Symbol>> entry : typeShedSymbols.entrySet()) {
       if (!entry.getValue().isEmpty()) {
         modules.add(entry.getKey());
@@ -272,6 +287,7 @@ public class TypeShed {
   public static void resetBuiltinSymbols() {
     builtins = null;
     typeShedSymbols.clear();
+    modulesToLoadLazily.clear();
     builtinSymbols();
   }
 
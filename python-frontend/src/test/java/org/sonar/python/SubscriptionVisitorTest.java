@@ -19,7 +19,11 @@
  */
 package org.sonar.python;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -28,6 +32,7 @@ import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.caching.CacheContext;
+import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.StringElement;
 import org.sonar.plugins.python.api.tree.Tree;
@@ -64,6 +69,62 @@ public class SubscriptionVisitorTest {
     SubscriptionVisitor.analyze(Collections.singleton(check), context);
   }
 
+  @Test
+  public void test_regex_cache_shared_between_checks() {
+    List<RegexParseResult> results = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.STRING_ELEMENT,
+          ctx -> results.add(((RegexContext) ctx).regexForStringElement((StringElement) ctx.syntaxNode(), new FlagSet())));
+      }
+    };
+    PythonSubscriptionCheck otherCheck = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.STRING_ELEMENT,
+          ctx -> results.add(((RegexContext) ctx).regexForStringElement((StringElement) ctx.syntaxNode(), new FlagSet())));
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("'.*'", "'.*'");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, null);
+    SubscriptionVisitor.analyze(List.of(check, otherCheck), context);
+
+    assertThat(results).hasSize(4);
+    assertThat(results.get(0)).isSameAs(results.get(1));
+    assertThat(results.get(2)).isSameAs(results.get(3));
+    // Identical patterns at different locations are parsed separately, as parse results hold their locations.
+    assertThat(results.get(0)).isNotSameAs(results.get(2));
+  }
+
+  @Test
+  public void test_regex_call_cache() {
+    List<CallExpression> resolvedCalls = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
+          CallExpression callExpression = (CallExpression) ctx.syntaxNode();
+          RegexContext regexCtx = (RegexContext) ctx;
+          Function<CallExpression, Optional<RegexParseResult>> resolver = call -> {
+            resolvedCalls.add(call);
+            return Optional.empty();
+          };
+          assertThat(regexCtx.regexForCall(callExpression, 1, resolver)).isEmpty();
+          assertThat(regexCtx.regexForCall(callExpression, 1, resolver)).isEmpty();
+          assertThat(regexCtx.regexForCall(callExpression, null, resolver)).isEmpty();
+        });
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("re.compile('.*')");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, null);
+    SubscriptionVisitor.analyze(List.of(check, check), context);
+    // Resolved once per position of the flags parameter, even for several checks
+    assertThat(resolvedCalls).hasSize(2);
+  }
+
   @Test
   public void exposed_visitor_data() {
     FileInput fileInput = PythonTestUtils.parse("def foo(): ...");
@@ -19,12 +19,18 @@
  */
 package org.sonar.python.caching;
 
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.TokenType;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonPunctuator;
+import org.sonar.python.api.PythonTokenType;
 import org.sonar.python.tree.TokenImpl;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,9 +49,9 @@ public class CpdSerializerTest {
       .build();
 
     List<Token> tokens = List.of(new TokenImpl(sslrToken));
-    CpdSerializer.SerializationResult result = CpdSerializer.serialize(tokens);
+    byte[] bytes = CpdSerializer.serialize(tokens);
 
-    List<CpdSerializer.TokenInfo> tokenInfos = CpdSerializer.deserialize(result.data, result.stringTable);
+    List<CpdSerializer.TokenInfo> tokenInfos = CpdSerializer.deserialize(bytes);
 
     assertThat(tokenInfos)
       .hasSize(1);
@@ -54,24 +60,90 @@ public class CpdSerializerTest {
   }
 
   @Test
-  public void corrupted_string_table_format() {
+  public void shared_strings_are_not_written_in_string_table() throws IOException {
+    List<Token> tokens = List.of(
+      token(1, 0, "self", GenericTokenType.IDENTIFIER),
+      token(1, 4, ".", PythonPunctuator.DOT),
+      token(1, 5, "my_attribute", GenericTokenType.IDENTIFIER),
+      token(1, 17, "=", PythonPunctuator.ASSIGN),
+      token(1, 19, "None", PythonKeyword.NONE));
+    byte[] bytes = CpdSerializer.serialize(tokens);
+
+    VarLengthInputStream in = new VarLengthInputStream(bytes);
+    assertThat(in.readInt()).isEqualTo(CpdSerializer.SHARED_STRINGS_HASH);
+    assertThat(in.readInt()).isEqualTo(1);
+    assertThat(in.readUTF()).isEqualTo("my_attribute");
+
+    assertThat(CpdSerializer.deserialize(bytes))
+      .extracting(tokenInfo -> tokenInfo.value)
+      .containsExactly("self", ".", "my_attribute", "=", "None");
+  }
+
+  @Test
+  public void multiline_tokens() throws IOException {
+    List<Token> tokens = List.of(
+      token(1, 0, "x", GenericTokenType.IDENTIFIER),
+      token(1, 2, "=", PythonPunctuator.ASSIGN),
+      token(1, 4, "'''a\nbc'''", PythonTokenType.STRING),
+      token(3, 4, "print", GenericTokenType.IDENTIFIER));
+    byte[] bytes = CpdSerializer.serialize(tokens);
+
+    List<String> consumed = new ArrayList<>();
+    CpdSerializer.deserialize(bytes, (startLine, startLineOffset, endLine, endLineOffset, value) ->
+      consumed.add(String.format("%d:%d-%d:%d %s", startLine, startLineOffset, endLine, endLineOffset, value)));
+
+    assertThat(consumed).containsExactly(
+      "1:0-1:1 x",
+      "1:2-1:3 =",
+      "1:4-2:5 '''a\nbc'''",
+      "3:4-3:9 print");
+  }
+
+  @Test
+  public void shared_strings_mismatch() throws IOException {
+    byte[] bytes = withHeader(CpdSerializer.SHARED_STRINGS_HASH + 1, 0, 3, 'E', 'N', 'D', 0, 3, 'E', 'N', 'D');
+
+    assertThatCode(() -> CpdSerializer.deserialize(bytes))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, shared strings have changed");
+  }
+
+  @Test
+  public void corrupted_string_table_format() throws IOException {
     // A string table with zero elements and an invalid terminator
-    byte[] stringTable = new byte[] {0, 1, 2, 3};
-    byte[] data = new byte[] {0};
+    byte[] bytes = withHeader(CpdSerializer.SHARED_STRINGS_HASH, 0, 1, 2, 3, 0);
 
-    assertThatCode(() -> CpdSerializer.deserialize(data, stringTable))
+    assertThatCode(() -> CpdSerializer.deserialize(bytes))
       .isInstanceOf(IOException.class)
       .hasMessageStartingWith("Can't read data from cache, format corrupted");
   }
 
   @Test
-  public void corrupted_data_format() {
-    // A string table with zero elements and a valid terminator string
-    byte[] stringTable = new byte[] {0, 3, 'E', 'N', 'D'};
-    byte[] data = new byte[] {0, 1, 2, 3};
+  public void corrupted_data_format() throws IOException {
+    // A string table with zero elements and a valid terminator string, followed by corrupted data
+    byte[] bytes = withHeader(CpdSerializer.SHARED_STRINGS_HASH, 0, 3, 'E', 'N', 'D', 0, 1, 2, 3);
 
-    assertThatCode(() -> CpdSerializer.deserialize(data, stringTable))
+    assertThatCode(() -> CpdSerializer.deserialize(bytes))
       .isInstanceOf(IOException.class)
       .hasMessageStartingWith("Can't read data from cache, format corrupted");
   }
+
+  private static byte[] withHeader(int sharedStringsHash, int... content) throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    new VarLengthOutputStream(stream).writeInt(sharedStringsHash);
+    for (int b : content) {
+      stream.write(b);
+    }
+    return stream.toByteArray();
+  }
+
+  private static Token token(int line, int column, String value, TokenType type) {
+    return new TokenImpl(com.sonar.sslr.api.Token.builder()
+      .setLine(line)
+      .setColumn(column)
+      .setValueAndOriginalValue(value)
+      .setURI(URI.create(""))
+      .setType(type)
+      .build());
+  }
 }
@@ -20,6 +20,7 @@
 package org.sonar.python.semantic;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,4 +76,22 @@ public class DependencyGraphTest {
     Set<String> strings = dependencyGraph.impactedModules(List.of("mod1"));
     assertThat(strings).containsOnly("mod1", "mod2");
   }
+
+  @Test
+  public void long_import_chain() {
+    // mod0 <- mod1 <- ... <- modN: a change in mod0 impacts every module
+    int numberOfModules = 100_000;
+    Map<String, Set<String>> importsByModule = new HashMap<>();
+    Set<String> projectModulesFQN = new HashSet<>();
+    for (int i = 0; i < numberOfModules; i++) {
+      projectModulesFQN.add("mod" + i);
+      if (i > 0) {
+        importsByModule.put("mod" + i, Set.of("mod" + (i - 1)));
+      }
+    }
+    DependencyGraph dependencyGraph = DependencyGraph.from(importsByModule, projectModulesFQN);
+
+    assertThat(dependencyGraph.impactedModules(List.of("mod0"))).hasSize(numberOfModules);
+    assertThat(dependencyGraph.impactedModules(List.of("mod99998", "unknown"))).containsOnly("mod99998", "mod99999", "unknown");
+  }
 }
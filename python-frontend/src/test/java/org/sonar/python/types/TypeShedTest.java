@@ -481,6 +481,19 @@ public class TypeShedTest {
     assertThat(TypeShed.stubModules()).containsExactly("math");
   }
 
+  @Test
+  public void modules_loaded_lazily() {
+    TypeShed.loadModulesLazily(Set.of("math"));
+    assertThat(TypeShed.stubModules()).containsExactly("math");
+    assertThat(TypeShed.stubFilesSymbols()).extracting(Symbol::fullyQualifiedName).contains("math.sqrt");
+    assertThat(TypeShed.stubModules()).containsExactly("math");
+
+    TypeShed.resetBuiltinSymbols();
+    TypeShed.loadModulesLazily(Set.of("math"));
+    TypeShed.resetBuiltinSymbols();
+    assertThat(TypeShed.stubModules()).isEmpty();
+  }
+
   private static SymbolsProtos.ModuleSymbol moduleSymbol(String protobuf) throws TextFormat.ParseException {
     SymbolsProtos.ModuleSymbol.Builder builder = SymbolsProtos.ModuleSymbol.newBuilder();
     TextFormat.merge(protobuf, builder);
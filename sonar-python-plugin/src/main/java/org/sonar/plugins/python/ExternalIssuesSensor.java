@@ -26,7 +26,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.rule.Severity;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -46,6 +48,8 @@ public abstract class ExternalIssuesSensor implements Sensor {
   private static final Long DEFAULT_CONSTANT_DEBT_MINUTES = 5L;
   protected static final String PYLINT_LEGACY_KEY = "sonar.python.pylint.reportPath";
 
+  private InputFileIndex inputFileIndex;
+
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor
@@ -57,6 +61,7 @@ public abstract class ExternalIssuesSensor implements Sensor {
   @Override
   public void execute(SensorContext context) {
     Set<String> unresolvedInputFiles = new HashSet<>();
+    inputFileIndex = new InputFileIndex(context.fileSystem());
     List<File> reportFiles = ExternalReportProvider.getReportFiles(context, reportPathKey());
     if (reportFiles.isEmpty() && context.config().hasKey(PYLINT_LEGACY_KEY)) {
       reportFiles = ExternalReportProvider.getReportFiles(context, PYLINT_LEGACY_KEY);
@@ -64,6 +69,7 @@ public abstract class ExternalIssuesSensor implements Sensor {
     }
     reportFiles.forEach(report -> importExternalReport(report, context, unresolvedInputFiles));
     logUnresolvedInputFiles(unresolvedInputFiles);
+    inputFileIndex = null;
   }
 
   private void importExternalReport(File reportPath, SensorContext context, Set<String> unresolvedInputFiles) {
@@ -90,8 +96,16 @@ public abstract class ExternalIssuesSensor implements Sensor {
       , reportPath, e.getClass().getSimpleName(), e.getMessage());
   }
 
+  /**
+   * Input file with the given path, as reported by the linter. Lookups are cached for the whole sensor execution.
+   */
+  @CheckForNull
+  protected InputFile inputFile(String filePath) {
+    return inputFileIndex.inputFile(filePath);
+  }
+
   protected void saveIssue(SensorContext context, TextReportReader.Issue issue, Set<String> unresolvedInputFiles, String linterKey) {
-    InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(issue.filePath));
+    InputFile inputFile = inputFile(issue.filePath);
     if (inputFile == null) {
       unresolvedInputFiles.add(issue.filePath);
       return;
@@ -106,11 +120,12 @@ public abstract class ExternalIssuesSensor implements Sensor {
     NewIssueLocation primaryLocation = newExternalIssue.newLocation()
       .message(issue.message)
       .on(inputFile);
-    if (issue.columnNumber != null && issue.columnNumber < inputFile.selectLine(issue.lineNumber).end().lineOffset()) {
+    TextRange line = inputFile.selectLine(issue.lineNumber);
+    if (issue.columnNumber != null && issue.columnNumber < line.end().lineOffset()) {
       primaryLocation.at(inputFile.newRange(issue.lineNumber, issue.columnNumber, issue.lineNumber, issue.columnNumber + 1));
     } else {
       // Pylint formatted issues might not provide column information
-      primaryLocation.at(inputFile.selectLine(issue.lineNumber));
+      primaryLocation.at(line);
     }
 
     newExternalIssue.at(primaryLocation);
@@ -0,0 +1,89 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Resolves paths found in reports to the input files of the project.
+ * Instead of evaluating a {@link org.sonar.api.batch.fs.FilePredicate} on the whole file system for each lookup,
+ * input files are indexed by normalized absolute path once, and the result of each lookup (including failed ones) is cached.
+ * Lookups by absolute path can be done concurrently.
+ */
+public class InputFileIndex {
+
+  private final FileSystem fileSystem;
+  private final Path baseDir;
+  private final Map<String, Optional<InputFile>> inputFilesByReportedPath = new HashMap<>();
+  private volatile Map<Path, InputFile> inputFilesByAbsolutePath;
+
+  public InputFileIndex(FileSystem fileSystem) {
+    this.fileSystem = fileSystem;
+    this.baseDir = fileSystem.baseDir().toPath().toAbsolutePath().normalize();
+  }
+
+  /**
+   * Same semantics as {@link org.sonar.api.batch.fs.FilePredicates#hasPath(String)}:
+   * relative paths are resolved against the base directory of the file system.
+   */
+  @CheckForNull
+  public InputFile inputFile(String path) {
+    return inputFilesByReportedPath.computeIfAbsent(path, p -> Optional.ofNullable(resolve(p))).orElse(null);
+  }
+
+  @CheckForNull
+  public InputFile inputFile(Path absolutePath) {
+    return index().get(absolutePath.normalize());
+  }
+
+  @CheckForNull
+  private InputFile resolve(String path) {
+    try {
+      return inputFile(baseDir.resolve(Paths.get(path.replace('\\', '/'))));
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  private Map<Path, InputFile> index() {
+    Map<Path, InputFile> index = inputFilesByAbsolutePath;
+    if (index == null) {
+      synchronized (this) {
+        index = inputFilesByAbsolutePath;
+        if (index == null) {
+          index = new HashMap<>();
+          for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
+            index.put(inputFile.path().toAbsolutePath().normalize(), inputFile);
+          }
+          inputFilesByAbsolutePath = index;
+        }
+      }
+    }
+    return index;
+  }
+}
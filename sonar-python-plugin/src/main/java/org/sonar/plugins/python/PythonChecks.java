@@ -20,26 +20,42 @@
 package org.sonar.plugins.python;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
 import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.plugins.python.api.PythonCheck;
 import org.sonar.plugins.python.api.PythonCustomRuleRepository;
+import org.sonar.plugins.python.api.PythonSubscriptionCheck;
+import org.sonar.plugins.python.api.internal.EndOfAnalysis;
 
+/**
+ * Active checks of all repositories. Since the same checks are run on every file, they are partitioned once when repositories are added,
+ * so that retrieving the checks applicable to a file and the rule key of an issue do not depend on the number of checks.
+ */
 public class PythonChecks {
   private final CheckFactory checkFactory;
   private List<Checks<PythonCheck>> checksByRepository = new ArrayList<>();
 
+  private List<PythonCheck> allChecks = Collections.emptyList();
+  private final Map<PythonCheck, RuleKey> ruleKeysByCheck = new IdentityHashMap<>();
+  private final Map<InputFile.Type, List<PythonCheck>> applicableChecksByFileType = new EnumMap<>(InputFile.Type.class);
+  private final Map<InputFile.Type, List<PythonSubscriptionCheck>> subscriptionChecksByFileType = new EnumMap<>(InputFile.Type.class);
+  private final Map<InputFile.Type, List<PythonCheck>> visitorChecksByFileType = new EnumMap<>(InputFile.Type.class);
+  private List<EndOfAnalysis> endOfAnalysisChecks = Collections.emptyList();
+
   PythonChecks(CheckFactory checkFactory) {
     this.checkFactory = checkFactory;
   }
   public PythonChecks addChecks(String repositoryKey, Iterable<Class> checkClass) {
     checksByRepository.add(checkFactory.<PythonCheck>create(repositoryKey).addAnnotatedChecks(checkClass));
-
+    partitionChecks();
     return this;
   }
 
@@ -53,13 +69,78 @@ public class PythonChecks {
     return this;
   }
 
+  private void partitionChecks() {
+    List<PythonCheck> checks = new ArrayList<>();
+    List<EndOfAnalysis> endOfAnalysis = new ArrayList<>();
+    Map<InputFile.Type, List<PythonCheck>> applicableChecks = new EnumMap<>(InputFile.Type.class);
+    Map<InputFile.Type, List<PythonSubscriptionCheck>> subscriptionChecks = new EnumMap<>(InputFile.Type.class);
+    Map<InputFile.Type, List<PythonCheck>> visitorChecks = new EnumMap<>(InputFile.Type.class);
+    for (InputFile.Type fileType : InputFile.Type.values()) {
+      applicableChecks.put(fileType, new ArrayList<>());
+      subscriptionChecks.put(fileType, new ArrayList<>());
+      visitorChecks.put(fileType, new ArrayList<>());
+    }
+    ruleKeysByCheck.clear();
+    for (Checks<PythonCheck> repositoryChecks : checksByRepository) {
+      for (PythonCheck check : repositoryChecks.all()) {
+        checks.add(check);
+        ruleKeysByCheck.putIfAbsent(check, repositoryChecks.ruleKey(check));
+        if (check instanceof EndOfAnalysis) {
+          endOfAnalysis.add((EndOfAnalysis) check);
+        }
+        for (InputFile.Type fileType : InputFile.Type.values()) {
+          if (!isCheckApplicable(check, fileType)) {
+            continue;
+          }
+          applicableChecks.get(fileType).add(check);
+          if (check instanceof PythonSubscriptionCheck) {
+            subscriptionChecks.get(fileType).add((PythonSubscriptionCheck) check);
+          } else {
+            visitorChecks.get(fileType).add(check);
+          }
+        }
+      }
+    }
+    allChecks = Collections.unmodifiableList(checks);
+    endOfAnalysisChecks = Collections.unmodifiableList(endOfAnalysis);
+    for (InputFile.Type fileType : InputFile.Type.values()) {
+      applicableChecksByFileType.put(fileType, Collections.unmodifiableList(applicableChecks.get(fileType)));
+      subscriptionChecksByFileType.put(fileType, Collections.unmodifiableList(subscriptionChecks.get(fileType)));
+      visitorChecksByFileType.put(fileType, Collections.unmodifiableList(visitorChecks.get(fileType)));
+    }
+  }
+
+  static boolean isCheckApplicable(PythonCheck pythonCheck, InputFile.Type fileType) {
+    PythonCheck.CheckScope checkScope = pythonCheck.scope();
+    if (checkScope == PythonCheck.CheckScope.ALL) {
+      return true;
+    }
+    return fileType == InputFile.Type.MAIN;
+  }
+
   public List<PythonCheck> all() {
-    return checksByRepository.stream().flatMap(c -> c.all().stream()).collect(Collectors.toList());
+    return allChecks;
+  }
+
+  public List<PythonCheck> applicableChecks(InputFile.Type fileType) {
+    return applicableChecksByFileType.get(fileType);
+  }
+
+  public List<PythonSubscriptionCheck> subscriptionChecks(InputFile.Type fileType) {
+    return subscriptionChecksByFileType.get(fileType);
+  }
+
+  public List<PythonCheck> visitorChecks(InputFile.Type fileType) {
+    return visitorChecksByFileType.get(fileType);
+  }
+
+  public List<EndOfAnalysis> endOfAnalysisChecks() {
+    return endOfAnalysisChecks;
   }
 
   @Nullable
   public RuleKey ruleKey(PythonCheck check) {
-    return checksByRepository.stream().map(c -> c.ruleKey(check)).filter(Objects::nonNull).findFirst().orElse(null);
+    return ruleKeysByCheck.get(check);
   }
 
 }
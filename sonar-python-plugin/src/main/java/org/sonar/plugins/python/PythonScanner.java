@@ -22,6 +22,9 @@ package org.sonar.plugins.python;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.RecognitionException;
 import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,13 +35,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
 import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
@@ -54,11 +61,15 @@ import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonInputFileContext;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVisitorContext;
-import org.sonar.plugins.python.api.internal.EndOfAnalysis;
 import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.IssuesCacheRecord;
+import org.sonar.plugins.python.caching.IssuesCacheRecord.CachedIssue;
+import org.sonar.plugins.python.caching.MeasuresCacheRecord;
 import org.sonar.plugins.python.cpd.PythonCpdAnalyzer;
 import org.sonar.plugins.python.indexer.PythonIndexer;
 import org.sonar.python.SubscriptionVisitor;
+import org.sonar.python.checks.CheckList;
 import org.sonar.python.metrics.FileLinesVisitor;
 import org.sonar.python.metrics.FileMetrics;
 import org.sonar.python.parser.PythonParser;
@@ -72,7 +83,15 @@ import org.sonarsource.sonarlint.plugin.api.issue.NewSonarLintIssue;
 
 public class PythonScanner extends Scanner {
 
+  /**
+   * Enables caching the issues raised by the built-in rules, so that they are reported again without running the rules on files
+   * whose content, transitive imports and active rules did not change since the previous analysis.
+   * This only applies when unchanged files can be skipped (see {@link org.sonar.plugins.python.indexer.SonarQubePythonIndexer#SONAR_CAN_SKIP_UNCHANGED_FILES_KEY}).
+   */
+  public static final String SONAR_REPLAY_UNCHANGED_ISSUES_KEY = "sonar.python.replayUnchangedIssues";
   private static final Logger LOG = Loggers.get(PythonScanner.class);
+  private static final List<Metric<Integer>> FILE_METRICS = List.of(CoreMetrics.NCLOC, CoreMetrics.STATEMENTS, CoreMetrics.FUNCTIONS, CoreMetrics.CLASSES,
+    CoreMetrics.COMPLEXITY, CoreMetrics.COGNITIVE_COMPLEXITY, CoreMetrics.COMMENT_LINES);
 
   private final PythonParser parser;
   private final PythonChecks checks;
@@ -81,6 +100,9 @@ public class PythonScanner extends Scanner {
   private final PythonCpdAnalyzer cpdAnalyzer;
   private final PythonIndexer indexer;
   private final Map<InputFile, Set<PythonCheck>> checksExecutedWithoutParsingByFiles = new HashMap<>();
+  private final Map<String, Optional<InputFile>> inputFilesById = new HashMap<>();
+  // Fingerprint of the active rules when issues are cached, null otherwise
+  private final byte[] rulesFingerprint;
 
   public PythonScanner(
     SensorContext context, PythonChecks checks,
@@ -93,6 +115,20 @@ public class PythonScanner extends Scanner {
     this.parser = parser;
     this.indexer = indexer;
     this.indexer.buildOnce(context);
+    this.rulesFingerprint = rulesFingerprint(context, indexer);
+  }
+
+  @CheckForNull
+  private static byte[] rulesFingerprint(SensorContext context, PythonIndexer indexer) {
+    if (!indexer.cacheContext().isCacheEnabled() || !context.config().getBoolean(SONAR_REPLAY_UNCHANGED_ISSUES_KEY).orElse(false)) {
+      return null;
+    }
+    try {
+      return IssuesCacheRecord.rulesFingerprint(context.activeRules());
+    } catch (NoSuchAlgorithmException e) {
+      LOG.debug("Failed to compute the fingerprint of active rules, issues will not be cached.");
+      return null;
+    }
   }
 
   @Override
@@ -105,6 +141,8 @@ public class PythonScanner extends Scanner {
     PythonFile pythonFile = SonarQubePythonFile.create(inputFile);
     PythonVisitorContext visitorContext;
     InputFile.Type fileType = inputFile.type();
+    // Measures, highlighting and symbols are cached so that they can be pushed again when the file is not parsed
+    MeasuresCacheRecord measuresRecord = !isInSonarLint(context) && indexer.cacheContext().isCacheEnabled() ? new MeasuresCacheRecord() : null;
     try {
       AstNode astNode = parser.parse(pythonFile.content());
       PythonTreeMaker treeMaker = getTreeMaker(inputFile);
@@ -112,7 +150,7 @@ public class PythonScanner extends Scanner {
       visitorContext = new PythonVisitorContext(
         parse, pythonFile, getWorkingDirectory(context), indexer.packageName(inputFile), indexer.projectLevelSymbolTable(), indexer.cacheContext());
       if (fileType == InputFile.Type.MAIN) {
-        saveMeasures(inputFile, visitorContext);
+        saveMeasures(inputFile, visitorContext, measuresRecord);
       }
     } catch (RecognitionException e) {
       visitorContext = new PythonVisitorContext(pythonFile, e);
@@ -124,24 +162,36 @@ public class PythonScanner extends Scanner {
         .message(e.getMessage())
         .save();
     }
-    List<PythonSubscriptionCheck> checksBasedOnTree = new ArrayList<>();
-    for (PythonCheck check : checks.all()) {
-      if (!isCheckApplicable(check, fileType)
-        || checksExecutedWithoutParsingByFiles.getOrDefault(inputFile, Collections.emptySet()).contains(check)) {
-        continue;
-      }
-      if (check instanceof PythonSubscriptionCheck) {
-        checksBasedOnTree.add((PythonSubscriptionCheck) check);
-      } else {
+    Set<PythonCheck> checksExecutedWithoutParsing = checksExecutedWithoutParsingByFiles.getOrDefault(inputFile, Collections.emptySet());
+    for (PythonCheck check : checks.visitorChecks(fileType)) {
+      if (!checksExecutedWithoutParsing.contains(check)) {
         check.scanFile(visitorContext);
       }
     }
+    List<PythonSubscriptionCheck> checksBasedOnTree = new ArrayList<>();
+    for (PythonSubscriptionCheck check : checks.subscriptionChecks(fileType)) {
+      if (!checksExecutedWithoutParsing.contains(check)) {
+        checksBasedOnTree.add(check);
+      }
+    }
     SubscriptionVisitor.analyze(checksBasedOnTree, visitorContext);
     saveIssues(inputFile, visitorContext.getIssues());
+    if (rulesFingerprint != null) {
+      saveIssuesToCache(inputFile, visitorContext.getIssues());
+    }
 
     if (visitorContext.rootTree() != null && !isInSonarLint(context)) {
-      new SymbolVisitor(context.newSymbolTable().onFile(inputFile)).visitFileInput(visitorContext.rootTree());
-      new PythonHighlighter(context, inputFile).scanFile(visitorContext);
+      NewSymbolTable newSymbolTable = context.newSymbolTable().onFile(inputFile);
+      NewHighlighting newHighlighting = context.newHighlighting().onFile(inputFile);
+      if (measuresRecord != null) {
+        newSymbolTable = measuresRecord.recording(newSymbolTable);
+        newHighlighting = measuresRecord.recording(newHighlighting);
+      }
+      new SymbolVisitor(newSymbolTable).visitFileInput(visitorContext.rootTree());
+      new PythonHighlighter(newHighlighting).scanFile(visitorContext);
+      if (measuresRecord != null) {
+        saveMeasuresToCache(inputFile, measuresRecord);
+      }
     }
   }
 
@@ -151,10 +201,13 @@ public class PythonScanner extends Scanner {
 
   @Override
   public boolean scanFileWithoutParsing(InputFile inputFile) {
+    IssuesCacheRecord cachedIssues = cachedIssuesToReplay(inputFile);
     InputFile.Type fileType = inputFile.type();
     boolean result = true;
-    for (PythonCheck check : checks.all()) {
-      if (!isCheckApplicable(check, fileType)) {
+    for (PythonCheck check : checks.applicableChecks(fileType)) {
+      if (rulesFingerprint != null && hasCacheableIssues(check)) {
+        // When issues are cached, checks of the Python repository are either replayed or executed on the parsed file so that their issues are cached again
+        result &= cachedIssues != null;
         continue;
       }
       if (checkRequiresParsingOfImpactedFile(inputFile, check)) {
@@ -178,27 +231,72 @@ public class PythonScanner extends Scanner {
       // We must avoid pushing measures twice due to the risk of duplicate cache key error.
       return false;
     }
-    return restoreAndPushMeasuresIfApplicable(inputFile);
+    if (!restoreAndPushMeasuresIfApplicable(inputFile)) {
+      return false;
+    }
+    if (cachedIssues != null) {
+      replayIssues(inputFile, cachedIssues);
+    }
+    return true;
   }
 
   private boolean checkRequiresParsingOfImpactedFile(InputFile inputFile, PythonCheck check) {
     return !indexer.canBeFullyScannedWithoutParsing(inputFile) && !check.getClass().getPackageName().startsWith("org.sonar.python.checks");
   }
 
-  @Override
-  public void endOfAnalysis() {
-    checks.all().stream()
-      .filter(EndOfAnalysis.class::isInstance)
-      .map(EndOfAnalysis.class::cast)
-      .forEach(c -> c.endOfAnalysis(indexer.cacheContext()));
+  /**
+   * Only issues of the rules covered by {@link IssuesCacheRecord#rulesFingerprint} are cached: otherwise a change to their rule
+   * would not invalidate them.
+   */
+  private boolean hasCacheableIssues(PythonCheck check) {
+    RuleKey ruleKey = checks.ruleKey(check);
+    return ruleKey != null && CheckList.REPOSITORY_KEY.equals(ruleKey.repository());
+  }
+
+  /**
+   * Issues can only be replayed on files which are unchanged and not impacted by a change in their transitive imports.
+   */
+  @CheckForNull
+  private IssuesCacheRecord cachedIssuesToReplay(InputFile inputFile) {
+    if (rulesFingerprint == null || !indexer.canBeFullyScannedWithoutParsing(inputFile)) {
+      return null;
+    }
+    byte[] bytes = indexer.cacheContext().getReadCache().readBytes(Caching.issuesCacheKey(inputFile.key()));
+    if (bytes == null) {
+      return null;
+    }
+    try {
+      IssuesCacheRecord cachedIssues = IssuesCacheRecord.fromBytes(bytes);
+      return MessageDigest.isEqual(cachedIssues.rulesFingerprint(), rulesFingerprint) ? cachedIssues : null;
+    } catch (IOException e) {
+      LOG.debug("Failed to deserialize cached issues for file: \"{}\"", inputFile.key());
+      return null;
+    }
   }
 
-  boolean isCheckApplicable(PythonCheck pythonCheck, InputFile.Type fileType) {
-    PythonCheck.CheckScope checkScope = pythonCheck.scope();
-    if (checkScope == PythonCheck.CheckScope.ALL) {
-      return true;
+  private void replayIssues(InputFile inputFile, IssuesCacheRecord cachedIssues) {
+    for (CachedIssue issue : cachedIssues.issues()) {
+      saveIssue(inputFile, issue.ruleKey(), issue.cost(), issue.primaryLocation(), issue.secondaryLocations(), Collections.emptyList());
+    }
+    indexer.cacheContext().getWriteCache().copyFromPrevious(Caching.issuesCacheKey(inputFile.key()));
+  }
+
+  private void saveIssuesToCache(InputFile inputFile, List<PreciseIssue> issues) {
+    List<CachedIssue> cachedIssues = issues.stream()
+      .filter(issue -> hasCacheableIssues(issue.check()))
+      .map(issue -> new CachedIssue(checks.ruleKey(issue.check()), issue.cost(), issue.primaryLocation(), issue.secondaryLocations()))
+      .collect(Collectors.toList());
+    try {
+      byte[] bytes = new IssuesCacheRecord(rulesFingerprint, cachedIssues).toBytes();
+      indexer.cacheContext().getWriteCache().write(Caching.issuesCacheKey(inputFile.key()), bytes);
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize issues for file: \"{}\"", inputFile.key());
     }
-    return fileType == InputFile.Type.MAIN;
+  }
+
+  @Override
+  public void endOfAnalysis() {
+    checks.endOfAnalysisChecks().forEach(c -> c.endOfAnalysis(indexer.cacheContext()));
   }
 
   // visible for testing
@@ -228,53 +326,59 @@ public class PythonScanner extends Scanner {
 
   private void saveIssues(InputFile inputFile, List<PreciseIssue> issues) {
     for (PreciseIssue preciseIssue : issues) {
-      RuleKey ruleKey = checks.ruleKey(preciseIssue.check());
-      NewIssue newIssue = context
-        .newIssue()
-        .forRule(ruleKey);
-
-      Integer cost = preciseIssue.cost();
-      if (cost != null) {
-        newIssue.gap(cost.doubleValue());
-      }
+      saveIssue(inputFile, checks.ruleKey(preciseIssue.check()), preciseIssue.cost(), preciseIssue.primaryLocation(), preciseIssue.secondaryLocations(),
+        preciseIssue.quickFixes());
+    }
+  }
 
-      NewIssueLocation primaryLocation = newLocation(inputFile, newIssue, preciseIssue.primaryLocation());
-      newIssue.at(primaryLocation);
+  private void saveIssue(InputFile inputFile, RuleKey ruleKey, @Nullable Integer cost, IssueLocation issueLocation, List<IssueLocation> secondaryLocations,
+    List<PythonQuickFix> quickFixes) {
+    NewIssue newIssue = context
+      .newIssue()
+      .forRule(ruleKey);
+
+    if (cost != null) {
+      newIssue.gap(cost.doubleValue());
+    }
 
-      Deque<NewIssueLocation> secondaryLocationsFlow = new ArrayDeque<>();
+    NewIssueLocation primaryLocation = newLocation(inputFile, newIssue, issueLocation);
+    newIssue.at(primaryLocation);
 
-      for (IssueLocation secondaryLocation : preciseIssue.secondaryLocations()) {
-        String fileId = secondaryLocation.fileId();
-        if (fileId != null) {
-          InputFile issueLocationFile = component(fileId, context);
-          if (issueLocationFile != null) {
-            secondaryLocationsFlow.addFirst(newLocation(issueLocationFile, newIssue, secondaryLocation));
-          }
-        } else {
-          newIssue.addLocation(newLocation(inputFile, newIssue, secondaryLocation));
+    Deque<NewIssueLocation> secondaryLocationsFlow = new ArrayDeque<>();
+
+    for (IssueLocation secondaryLocation : secondaryLocations) {
+      String fileId = secondaryLocation.fileId();
+      if (fileId != null) {
+        InputFile issueLocationFile = component(fileId, context);
+        if (issueLocationFile != null) {
+          secondaryLocationsFlow.addFirst(newLocation(issueLocationFile, newIssue, secondaryLocation));
         }
+      } else {
+        newIssue.addLocation(newLocation(inputFile, newIssue, secondaryLocation));
       }
+    }
 
-      // secondary locations on multiple files are only supported using flows
-      if (!secondaryLocationsFlow.isEmpty()) {
-        secondaryLocationsFlow.addFirst(primaryLocation);
-        newIssue.addFlow(secondaryLocationsFlow);
-      }
+    // secondary locations on multiple files are only supported using flows
+    if (!secondaryLocationsFlow.isEmpty()) {
+      secondaryLocationsFlow.addFirst(primaryLocation);
+      newIssue.addFlow(secondaryLocationsFlow);
+    }
 
-      handleQuickFixes(inputFile, ruleKey, newIssue, preciseIssue);
+    handleQuickFixes(inputFile, ruleKey, newIssue, quickFixes);
 
-      newIssue.save();
-    }
+    newIssue.save();
   }
 
   @CheckForNull
   private InputFile component(String fileId, SensorContext sensorContext) {
-    InputFile inputFile = Optional.ofNullable(sensorContext.fileSystem().inputFile(sensorContext.fileSystem().predicates().is(new File(fileId))))
-      .orElseGet(() -> indexer.getFileWithId(fileId));
-    if (inputFile == null) {
-      LOG.debug("Failed to find InputFile for {}", fileId);
-    }
-    return inputFile;
+    return inputFilesById.computeIfAbsent(fileId, id -> {
+      InputFile inputFile = Optional.ofNullable(sensorContext.fileSystem().inputFile(sensorContext.fileSystem().predicates().is(new File(id))))
+        .orElseGet(() -> indexer.getFileWithId(id));
+      if (inputFile == null) {
+        LOG.debug("Failed to find InputFile for {}", id);
+      }
+      return Optional.ofNullable(inputFile);
+    }).orElse(null);
   }
 
   private static NewIssueLocation newLocation(InputFile inputFile, NewIssue issue, IssueLocation location) {
@@ -297,7 +401,7 @@ public class PythonScanner extends Scanner {
     return newLocation;
   }
 
-  private void saveMeasures(InputFile inputFile, PythonVisitorContext visitorContext) {
+  private void saveMeasures(InputFile inputFile, PythonVisitorContext visitorContext, @Nullable MeasuresCacheRecord measuresRecord) {
     FileMetrics fileMetrics = new FileMetrics(visitorContext);
     FileLinesVisitor fileLinesVisitor = fileMetrics.fileLinesVisitor();
 
@@ -307,31 +411,84 @@ public class PythonScanner extends Scanner {
       cpdAnalyzer.pushCpdTokens(inputFile, visitorContext);
 
       Set<Integer> linesOfCode = fileLinesVisitor.getLinesOfCode();
-      saveMetricOnFile(inputFile, CoreMetrics.NCLOC, linesOfCode.size());
-      saveMetricOnFile(inputFile, CoreMetrics.STATEMENTS, fileMetrics.numberOfStatements());
-      saveMetricOnFile(inputFile, CoreMetrics.FUNCTIONS, fileMetrics.numberOfFunctions());
-      saveMetricOnFile(inputFile, CoreMetrics.CLASSES, fileMetrics.numberOfClasses());
-      saveMetricOnFile(inputFile, CoreMetrics.COMPLEXITY, fileMetrics.complexity());
-      saveMetricOnFile(inputFile, CoreMetrics.COGNITIVE_COMPLEXITY, fileMetrics.cognitiveComplexity());
-      saveMetricOnFile(inputFile, CoreMetrics.COMMENT_LINES, fileLinesVisitor.getCommentLineCount());
-
-      FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
-      for (int line : linesOfCode) {
-        fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
-      }
-      for (int line : fileLinesVisitor.getExecutableLines()) {
-        fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1);
+      MeasuresCacheRecord record = measuresRecord != null ? measuresRecord : new MeasuresCacheRecord();
+      record.addMetric(CoreMetrics.NCLOC_KEY, linesOfCode.size());
+      record.addMetric(CoreMetrics.STATEMENTS_KEY, fileMetrics.numberOfStatements());
+      record.addMetric(CoreMetrics.FUNCTIONS_KEY, fileMetrics.numberOfFunctions());
+      record.addMetric(CoreMetrics.CLASSES_KEY, fileMetrics.numberOfClasses());
+      record.addMetric(CoreMetrics.COMPLEXITY_KEY, fileMetrics.complexity());
+      record.addMetric(CoreMetrics.COGNITIVE_COMPLEXITY_KEY, fileMetrics.cognitiveComplexity());
+      record.addMetric(CoreMetrics.COMMENT_LINES_KEY, fileLinesVisitor.getCommentLineCount());
+      record.setLinesOfCode(linesOfCode);
+      record.setExecutableLines(fileLinesVisitor.getExecutableLines());
+      record.setLinesWithNoSonar(fileLinesVisitor.getLinesWithNoSonar());
+      pushMeasures(inputFile, record);
+    }
+  }
+
+  private void pushMeasures(InputFile inputFile, MeasuresCacheRecord measuresRecord) {
+    for (Metric<Integer> metric : FILE_METRICS) {
+      Integer value = measuresRecord.metrics().get(metric.key());
+      if (value != null) {
+        saveMetricOnFile(inputFile, metric, value);
       }
-      fileLinesContext.save();
     }
+
+    FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
+    for (int line : measuresRecord.linesOfCode()) {
+      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
+    }
+    for (int line : measuresRecord.executableLines()) {
+      fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1);
+    }
+    fileLinesContext.save();
   }
 
+  private void saveMeasuresToCache(InputFile inputFile, MeasuresCacheRecord measuresRecord) {
+    try {
+      indexer.cacheContext().getWriteCache().write(Caching.measuresCacheKey(inputFile.key()), measuresRecord.toBytes());
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize measures for file: \"{}\"", inputFile.key());
+    }
+  }
+
+  /**
+   * The measures record is read before CPD tokens are pushed: when it is missing or unreadable, nothing is pushed and the file is parsed.
+   */
   private boolean restoreAndPushMeasuresIfApplicable(InputFile inputFile) {
-    if (inputFile.type() == InputFile.Type.TEST) {
-      return true;
+    MeasuresCacheRecord measuresRecord = readCachedMeasures(inputFile);
+    if (measuresRecord == null) {
+      return false;
+    }
+    if (inputFile.type() == InputFile.Type.MAIN && !cpdAnalyzer.pushCachedCpdTokens(inputFile, indexer.cacheContext())) {
+      return false;
     }
+    pushCachedMeasures(inputFile, measuresRecord);
+    return true;
+  }
+
+  @CheckForNull
+  private MeasuresCacheRecord readCachedMeasures(InputFile inputFile) {
+    byte[] bytes = indexer.cacheContext().getReadCache().readBytes(Caching.measuresCacheKey(inputFile.key()));
+    if (bytes == null) {
+      return null;
+    }
+    try {
+      return MeasuresCacheRecord.fromBytes(bytes);
+    } catch (IOException e) {
+      LOG.debug("Failed to deserialize measures for file: \"{}\"", inputFile.key());
+      return null;
+    }
+  }
 
-    return cpdAnalyzer.pushCachedCpdTokens(inputFile, indexer.cacheContext());
+  private void pushCachedMeasures(InputFile inputFile, MeasuresCacheRecord measuresRecord) {
+    if (inputFile.type() == InputFile.Type.MAIN) {
+      noSonarFilter.noSonarInFile(inputFile, measuresRecord.linesWithNoSonar());
+      pushMeasures(inputFile, measuresRecord);
+    }
+    measuresRecord.replaySymbols(context.newSymbolTable().onFile(inputFile));
+    measuresRecord.replayHighlighting(context.newHighlighting().onFile(inputFile));
+    indexer.cacheContext().getWriteCache().copyFromPrevious(Caching.measuresCacheKey(inputFile.key()));
   }
 
   private void saveMetricOnFile(InputFile inputFile, Metric<Integer> metric, Integer value) {
@@ -342,9 +499,8 @@ public class PythonScanner extends Scanner {
       .save();
   }
 
-  private void handleQuickFixes(InputFile inputFile, RuleKey ruleKey, NewIssue newIssue, PreciseIssue preciseIssue) {
+  private void handleQuickFixes(InputFile inputFile, RuleKey ruleKey, NewIssue newIssue, List<PythonQuickFix> quickFixes) {
     if (isInSonarLint(context) && newIssue instanceof NewSonarLintIssue) {
-      List<PythonQuickFix> quickFixes = preciseIssue.quickFixes();
       addQuickFixes(inputFile, ruleKey, quickFixes, (NewSonarLintIssue) newIssue);
     }
   }
@@ -0,0 +1,53 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+/**
+ * Helpers shared by the parsers which split lines of text reports without regular expression.
+ */
+public class ReportLineUtils {
+
+  private ReportLineUtils() {
+  }
+
+  /**
+   * Returns the index of the first character at or after {@code from} which is not an ASCII digit.
+   */
+  public static int skipDigits(String line, int from) {
+    int index = from;
+    while (index < line.length() && line.charAt(index) >= '0' && line.charAt(index) <= '9') {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Whitespaces other than the space character, including line terminators, are left to the regular expressions.
+   */
+  public static boolean hasSpecialWhitespace(String line) {
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c != ' ' && (Character.isWhitespace(c) || c == '\u0085')) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
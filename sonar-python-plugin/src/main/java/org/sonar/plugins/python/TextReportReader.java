@@ -19,13 +19,14 @@
  */
 package org.sonar.plugins.python;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.nio.file.Files;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.utils.log.Logger;
@@ -48,21 +49,28 @@ public class TextReportReader {
     this.reportOffset = columnStartIndex;
   }
 
-  public List<Issue> parse(File report, FileSystem fileSystem) throws IOException {
-    List<Issue> issues = new ArrayList<>();
-    try (Scanner scanner = new Scanner(report.toPath(), fileSystem.encoding().name())) {
-      while (scanner.hasNextLine()) {
-        Issue issue = parseLine(scanner.nextLine());
+  /**
+   * Issues are handed to the consumer as soon as their line is read, the report is never fully loaded in memory.
+   */
+  public void parse(File report, FileSystem fileSystem, Consumer<Issue> issueConsumer) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(report.toPath(), fileSystem.encoding())) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Issue issue = parseLine(line);
         if (issue != null) {
-          issues.add(issue);
+          issueConsumer.accept(issue);
         }
       }
     }
-    return issues;
   }
 
-  private Issue parseLine(String line) {
+  @CheckForNull
+  Issue parseLine(String line) {
     if (line.length() > 0) {
+      Issue issue = parseDefaultStyleLine(line);
+      if (issue != null) {
+        return issue;
+      }
       Matcher m = TextReportReader.DEFAULT_PATTERN.matcher(line);
       if (m.matches()) {
         return extractDefaultStyleIssue(m);
@@ -76,6 +84,71 @@ public class TextReportReader {
     return null;
   }
 
+  /**
+   * Parses the usual "path:line:column: rule message" lines without regular expression.
+   * Returns null whenever the line is not in a canonical form, so that it gets parsed by {@link #DEFAULT_PATTERN}:
+   * the result of this method is always the same as the one of the pattern.
+   */
+  @CheckForNull
+  Issue parseDefaultStyleLine(String line) {
+    if (ReportLineUtils.hasSpecialWhitespace(line)) {
+      return null;
+    }
+    int locationStart = line.indexOf(':', 1);
+    int ruleStart = -1;
+    while (locationStart >= 0 && ruleStart < 0) {
+      ruleStart = endOfLocation(line, locationStart);
+      if (ruleStart < 0) {
+        locationStart = line.indexOf(':', locationStart + 1);
+      }
+    }
+    // the path is greedy: any other location further on the line would be part of it
+    if (ruleStart < 0 || containsLocation(line, ruleStart)) {
+      return null;
+    }
+    int ruleEnd = line.indexOf(' ', ruleStart);
+    if (ruleEnd < 0 || (ruleEnd + 1 < line.length() && (line.charAt(ruleEnd + 1) == ' ' || line.charAt(ruleEnd + 1) == ':'))) {
+      return null;
+    }
+    int ruleKeyEnd = line.charAt(ruleEnd - 1) == ':' ? (ruleEnd - 1) : ruleEnd;
+    if (ruleKeyEnd - ruleStart < 2 || line.charAt(ruleKeyEnd - 1) == ':') {
+      return null;
+    }
+    int lineEnd = line.indexOf(':', locationStart + 1);
+    int lineNumber = Integer.parseInt(line.substring(locationStart + 1, lineEnd));
+    int columnNumber = Integer.parseInt(line.substring(lineEnd + 1, ruleStart - 2)) - this.reportOffset;
+    return new Issue(line.substring(0, locationStart), line.substring(ruleStart, ruleKeyEnd), line.substring(ruleEnd + 1), lineNumber, columnNumber);
+  }
+
+  /**
+   * Returns the index following ":line:column: " when it starts at the given colon, -1 otherwise.
+   */
+  private static int endOfLocation(String line, int colon) {
+    int index = colon;
+    for (int group = 0; group < 2; group++) {
+      if (index >= line.length() || line.charAt(index) != ':') {
+        return -1;
+      }
+      int digitsEnd = ReportLineUtils.skipDigits(line, index + 1);
+      if (digitsEnd == index + 1) {
+        return -1;
+      }
+      index = digitsEnd;
+    }
+    return line.startsWith(": ", index) ? (index + 2) : -1;
+  }
+
+  private static boolean containsLocation(String line, int from) {
+    int colon = line.indexOf(':', from);
+    while (colon >= 0) {
+      if (endOfLocation(line, colon) >= 0) {
+        return true;
+      }
+      colon = line.indexOf(':', colon + 1);
+    }
+    return false;
+  }
+
   private Issue extractDefaultStyleIssue(Matcher m) {
     String filePath = m.group(1);
     int lineNumber = Integer.parseInt(m.group(2));
@@ -22,18 +22,23 @@ package org.sonar.plugins.python.bandit;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 import javax.annotation.Nullable;
-import org.sonarsource.analyzer.commons.internal.json.simple.JSONArray;
-import org.sonarsource.analyzer.commons.internal.json.simple.JSONObject;
+import org.sonarsource.analyzer.commons.internal.json.simple.parser.ContentHandler;
 import org.sonarsource.analyzer.commons.internal.json.simple.parser.JSONParser;
 import org.sonarsource.analyzer.commons.internal.json.simple.parser.ParseException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Reads Bandit JSON reports in a streaming fashion: issues are handed to the consumer as soon as their "results" entry is read,
+ * without building the JSON tree of the whole report. Nested values of a result (e.g. "code" or "line_range") are skipped.
+ */
 public class BanditJsonReportReader {
 
+  private static final int ROOT_OBJECT_DEPTH = 1;
+
   private final JSONParser jsonParser = new JSONParser();
   private final Consumer<Issue> consumer;
 
@@ -61,25 +66,129 @@ public class BanditJsonReportReader {
   }
 
   private void read(InputStream in) throws IOException, ParseException {
-    JSONObject rootObject = (JSONObject) jsonParser.parse(new InputStreamReader(in, UTF_8));
-    JSONArray files = (JSONArray) rootObject.get("results");
-    if (files != null) {
-      ((Stream<JSONObject>) files.stream()).forEach(this::onResult);
+    try (Reader reader = new InputStreamReader(in, UTF_8)) {
+      jsonParser.parse(reader, new ResultsHandler());
     }
   }
 
-  private void onResult(JSONObject result) {
-    Issue issue = new Issue();
-    issue.ruleKey = (String) result.get("test_id");
-    issue.filePath = (String) result.get("filename");
-    issue.message = (String) result.get("issue_text");
-    issue.lineNumber = toInteger(result.get("line_number"));
-    issue.severity = (String) result.get("issue_severity");
-    issue.confidence = (String) result.get("issue_confidence");
-    consumer.accept(issue);
+  private class ResultsHandler implements ContentHandler {
+
+    private int depth = 0;
+    private int resultsArrayDepth = -1;
+    @Nullable
+    private String rootKey;
+    @Nullable
+    private String resultKey;
+    @Nullable
+    private Issue currentIssue;
+
+    @Override
+    public void startJSON() {
+      depth = 0;
+      resultsArrayDepth = -1;
+    }
+
+    @Override
+    public void endJSON() {
+      // nothing to do
+    }
+
+    @Override
+    public boolean startObject() {
+      depth++;
+      if (isResultDepth()) {
+        currentIssue = new Issue();
+      }
+      return true;
+    }
+
+    @Override
+    public boolean endObject() {
+      if (isResultDepth() && currentIssue != null) {
+        consumer.accept(currentIssue);
+        currentIssue = null;
+      }
+      depth--;
+      return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+      if (depth == ROOT_OBJECT_DEPTH) {
+        rootKey = key;
+      } else if (isResultDepth()) {
+        resultKey = key;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+      if (depth == ROOT_OBJECT_DEPTH) {
+        rootKey = null;
+      } else if (isResultDepth()) {
+        resultKey = null;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean startArray() {
+      depth++;
+      if (depth == ROOT_OBJECT_DEPTH + 1 && "results".equals(rootKey)) {
+        resultsArrayDepth = depth;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean endArray() {
+      if (depth == resultsArrayDepth) {
+        resultsArrayDepth = -1;
+      }
+      depth--;
+      return true;
+    }
+
+    @Override
+    public boolean primitive(@Nullable Object value) {
+      if (currentIssue != null && resultKey != null && isResultDepth()) {
+        onResultEntry(currentIssue, resultKey, value);
+      }
+      return true;
+    }
+
+    private boolean isResultDepth() {
+      return resultsArrayDepth != -1 && depth == resultsArrayDepth + 1;
+    }
+  }
+
+  private static void onResultEntry(Issue issue, String key, @Nullable Object value) {
+    switch (key) {
+      case "test_id":
+        issue.ruleKey = (String) value;
+        break;
+      case "filename":
+        issue.filePath = (String) value;
+        break;
+      case "issue_text":
+        issue.message = (String) value;
+        break;
+      case "line_number":
+        issue.lineNumber = toInteger(value);
+        break;
+      case "issue_severity":
+        issue.severity = (String) value;
+        break;
+      case "issue_confidence":
+        issue.confidence = (String) value;
+        break;
+      default:
+        // other entries are not needed to import issues
+    }
   }
 
-  private static Integer toInteger(Object value) {
+  private static Integer toInteger(@Nullable Object value) {
     if (value instanceof Number) {
       return ((Number) value).intValue();
     }
@@ -59,13 +59,13 @@ public class BanditSensor extends ExternalIssuesSensor {
   }
 
 
-  private static void saveIssue(SensorContext context, Issue issue, Set<String> unresolvedInputFiles) {
+  private void saveIssue(SensorContext context, Issue issue, Set<String> unresolvedInputFiles) {
     if (isEmpty(issue.ruleKey) || isEmpty(issue.filePath) || isEmpty(issue.message)) {
       LOG.debug("Missing information for ruleKey:'{}', filePath:'{}', message:'{}'", issue.ruleKey, issue.filePath, issue.message);
       return;
     }
 
-    InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(issue.filePath));
+    InputFile inputFile = inputFile(issue.filePath);
     if (inputFile == null) {
       unresolvedInputFiles.add(issue.filePath);
       return;
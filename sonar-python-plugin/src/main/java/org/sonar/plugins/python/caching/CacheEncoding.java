@@ -0,0 +1,123 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.python.caching.StringTable;
+import org.sonar.python.caching.VarLengthInputStream;
+import org.sonar.python.caching.VarLengthOutputStream;
+
+/**
+ * Compact encoding of the project level cache entries: sizes and indexes are var-length encoded, and module names shared
+ * by several entries of the import graph are written only once in a string table.
+ */
+public class CacheEncoding {
+
+  private CacheEncoding() {
+    // Prevent instantiation
+  }
+
+  public static byte[] encodeStrings(Collection<String> strings) throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        out.writeUTF(string);
+      }
+    }
+    return stream.toByteArray();
+  }
+
+  public static Set<String> decodeStrings(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      int size = in.readInt();
+      Set<String> strings = new HashSet<>();
+      for (int i = 0; i < size; i++) {
+        strings.add(in.readUTF());
+      }
+      return strings;
+    }
+  }
+
+  /**
+   * The string table holding every file key and imported module comes first, followed by the imports of each file as indexes in that table.
+   */
+  public static byte[] encodeImportGraph(Map<String, Set<String>> importsByFileKey) throws IOException {
+    StringTable stringTable = new StringTable();
+    importsByFileKey.forEach((fileKey, imports) -> {
+      stringTable.getIndex(fileKey);
+      imports.forEach(stringTable::getIndex);
+    });
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      List<String> strings = stringTable.getStringList();
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        out.writeUTF(string);
+      }
+      out.writeInt(importsByFileKey.size());
+      for (Map.Entry<String, Set<String>> entry : importsByFileKey.entrySet()) {
+        out.writeInt(stringTable.getIndex(entry.getKey()));
+        out.writeInt(entry.getValue().size());
+        for (String importedModule : entry.getValue()) {
+          out.writeInt(stringTable.getIndex(importedModule));
+        }
+      }
+    }
+    return stream.toByteArray();
+  }
+
+  public static Map<String, Set<String>> decodeImportGraph(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      int numberOfStrings = in.readInt();
+      String[] strings = new String[numberOfStrings];
+      for (int i = 0; i < numberOfStrings; i++) {
+        strings[i] = in.readUTF();
+      }
+      int numberOfFiles = in.readInt();
+      Map<String, Set<String>> importsByFileKey = new HashMap<>();
+      for (int i = 0; i < numberOfFiles; i++) {
+        String fileKey = readString(in, strings);
+        int numberOfImports = in.readInt();
+        Set<String> imports = new HashSet<>();
+        for (int j = 0; j < numberOfImports; j++) {
+          imports.add(readString(in, strings));
+        }
+        importsByFileKey.put(fileKey, imports);
+      }
+      return importsByFileKey;
+    }
+  }
+
+  private static String readString(VarLengthInputStream in, String[] strings) throws IOException {
+    int index = in.readInt();
+    if (index < 0 || index >= strings.length) {
+      throw new IOException("Invalid string index in cache entry: " + index);
+    }
+    return strings[index];
+  }
+}
@@ -20,11 +20,13 @@
 package org.sonar.plugins.python.caching;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
@@ -40,14 +42,14 @@ public class Caching {
 
   private final CacheContext cacheContext;
 
-  public static final String IMPORTS_MAP_CACHE_KEY_PREFIX = "python:imports:";
-  public static final String PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX = "python:descriptors:";
+  public static final String FILE_RECORD_CACHE_KEY_PREFIX = "python:file:";
   public static final String PROJECT_FILES_KEY = "python:files";
-  public static final String CONTENT_HASHES_KEY = "python:content_hashes:";
+  public static final String IMPORT_GRAPH_KEY = "python:import_graph";
   public static final String TYPESHED_MODULES_KEY = "python:typeshed_modules";
   public static final String CACHE_VERSION_KEY = "python:cache_version";
-  public static final String CPD_TOKENS_CACHE_KEY_PREFIX = "python:cpd:data:";
-  public static final String CPD_TOKENS_STRING_TABLE_KEY_PREFIX = "python:cpd:stringTable:";
+  public static final String CPD_TOKENS_CACHE_KEY_PREFIX = "python:cpd:";
+  public static final String ISSUES_CACHE_KEY_PREFIX = "python:issues:";
+  public static final String MEASURES_CACHE_KEY_PREFIX = "python:measures:";
 
   private static final Logger LOG = Loggers.get(Caching.class);
 
@@ -58,73 +60,86 @@ public class Caching {
     this.cacheVersion = cacheVersion;
   }
 
-  public void writeImportsMapEntry(String fileKey, Set<String> imports) {
-    byte[] importData = String.join(";", imports).getBytes(StandardCharsets.UTF_8);
-    String cacheKey = importsMapCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, importData);
+  /**
+   * Writes the cache record of a file for which only the content hash is relevant (e.g. test files).
+   */
+  public void writeFileRecord(String fileKey, byte[] contentHash) {
+    writeFileRecord(fileKey, new FileCacheRecord(contentHash, null));
   }
 
-  public void writeFileContentHash(String fileKey, byte[] hash) {
-    String cacheKey = fileContentHashCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, hash);
+  public void writeFileRecord(String fileKey, byte[] contentHash, Set<Descriptor> descriptors) {
+    writeFileRecord(fileKey, new FileCacheRecord(contentHash, toProtobufModuleDescriptor(descriptors).toByteArray()));
+  }
+
+  private void writeFileRecord(String fileKey, FileCacheRecord fileRecord) {
+    try {
+      cacheContext.getWriteCache().write(fileRecordCacheKey(fileKey), fileRecord.toBytes());
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize cache record for file: \"{}\"", fileKey);
+    }
   }
 
   public void writeFilesList(List<String> mainFiles) {
-    byte[] projectFiles = String.join(";", mainFiles).getBytes(StandardCharsets.UTF_8);
-    cacheContext.getWriteCache().write(PROJECT_FILES_KEY, projectFiles);
+    writeSet(PROJECT_FILES_KEY, mainFiles);
   }
 
   public void writeTypeshedModules(Set<String> stubModules) {
-    byte[] stubModulesBytes = String.join(";", stubModules).getBytes(StandardCharsets.UTF_8);
-    cacheContext.getWriteCache().write(TYPESHED_MODULES_KEY, stubModulesBytes);
+    writeSet(TYPESHED_MODULES_KEY, stubModules);
   }
 
-  public void writeCacheVersion() {
-    cacheContext.getWriteCache().write(CACHE_VERSION_KEY, cacheVersion.getBytes(StandardCharsets.UTF_8));
+  private void writeSet(String cacheKey, Collection<String> strings) {
+    try {
+      cacheContext.getWriteCache().write(cacheKey, CacheEncoding.encodeStrings(strings));
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize cache entry: \"{}\"", cacheKey);
+    }
   }
 
-  public void writeProjectLevelSymbolTableEntry(String fileKey, Set<Descriptor> descriptors) {
-    String cacheKey = projectSymbolTableCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, toProtobufModuleDescriptor(descriptors).toByteArray());
+  /**
+   * Writes the imported modules of all main files as a single entry, so that the dependency graph can be rebuilt with a single read.
+   */
+  public void writeImportGraph(Map<String, Set<String>> importsByFileKey) {
+    try {
+      cacheContext.getWriteCache().write(IMPORT_GRAPH_KEY, CacheEncoding.encodeImportGraph(importsByFileKey));
+    } catch (IOException e) {
+      LOG.debug("Failed to serialize cache entry: \"{}\"", IMPORT_GRAPH_KEY);
+    }
+  }
+
+  public void writeCacheVersion() {
+    cacheContext.getWriteCache().write(CACHE_VERSION_KEY, cacheVersion.getBytes(StandardCharsets.UTF_8));
   }
 
   public void copyFromPrevious(String fileKey) {
-    cacheContext.getWriteCache().copyFromPrevious(importsMapCacheKey(fileKey));
-    cacheContext.getWriteCache().copyFromPrevious(projectSymbolTableCacheKey(fileKey));
-    cacheContext.getWriteCache().copyFromPrevious(fileContentHashCacheKey(fileKey));
+    cacheContext.getWriteCache().copyFromPrevious(fileRecordCacheKey(fileKey));
   }
 
   @CheckForNull
-  public Set<Descriptor> readProjectLevelSymbolTableEntry(String fileKey) {
-    String key = projectSymbolTableCacheKey(fileKey);
-    if (cacheContext.getReadCache().contains(key)) {
-      byte[] bytes = cacheContext.getReadCache().readBytes(key);
-      if (bytes != null) {
-        try {
-          return fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(bytes));
-        } catch (InvalidProtocolBufferException e) {
-          LOG.debug("Failed to deserialize project level symbol table entry for module: \"{}\"", fileKey);
-        }
+  public FileCacheRecord readFileRecord(String fileKey) {
+    byte[] bytes = cacheContext.getReadCache().readBytes(fileRecordCacheKey(fileKey));
+    if (bytes != null) {
+      try {
+        return FileCacheRecord.fromBytes(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize cache record for file: \"{}\"", fileKey);
       }
     }
     return null;
   }
 
   @CheckForNull
-  public Set<String> readImportMapEntry(String fileKey) {
-    String cacheKey = importsMapCacheKey(fileKey);
-    byte[] bytes = cacheContext.getReadCache().readBytes(cacheKey);
+  public Set<Descriptor> readProjectLevelSymbolTableEntry(String fileKey, FileCacheRecord fileRecord) {
+    byte[] bytes = fileRecord.descriptors();
     if (bytes != null) {
-      return new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+      try {
+        return fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(bytes));
+      } catch (InvalidProtocolBufferException e) {
+        LOG.debug("Failed to deserialize project level symbol table entry for module: \"{}\"", fileKey);
+      }
     }
     return null;
   }
 
-  public byte[] readFileContentHash(String fileKey) {
-    String cacheKey = fileContentHashCacheKey(fileKey);
-    return cacheContext.getReadCache().readBytes(cacheKey);
-  }
-
   public Set<String> readFilesList() {
     return readSet(PROJECT_FILES_KEY);
   }
@@ -136,9 +151,28 @@ public class Caching {
   private Set<String> readSet(String cacheKey) {
     byte[] bytes = cacheContext.getReadCache().readBytes(cacheKey);
     if (bytes != null) {
-      return new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+      try {
+        return CacheEncoding.decodeStrings(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize cache entry: \"{}\"", cacheKey);
+      }
+    }
+    return new HashSet<>();
+  }
+
+  /**
+   * @return the imported modules of the main files of the previous analysis, by file key. Empty if they could not be retrieved.
+   */
+  public Map<String, Set<String>> readImportGraph() {
+    byte[] bytes = cacheContext.getReadCache().readBytes(IMPORT_GRAPH_KEY);
+    if (bytes != null) {
+      try {
+        return CacheEncoding.decodeImportGraph(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize cache entry: \"{}\"", IMPORT_GRAPH_KEY);
+      }
     }
-    return Collections.emptySet();
+    return Collections.emptyMap();
   }
 
   public boolean isCacheVersionUpToDate() {
@@ -163,15 +197,15 @@ public class Caching {
     return cacheContext;
   }
 
-  public static String importsMapCacheKey(String key) {
-    return IMPORTS_MAP_CACHE_KEY_PREFIX + key.replace('\\', '/');
+  public static String fileRecordCacheKey(String key) {
+    return FILE_RECORD_CACHE_KEY_PREFIX + key.replace('\\', '/');
   }
 
-  public static String projectSymbolTableCacheKey(String key) {
-    return PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + key.replace('\\', '/');
+  public static String issuesCacheKey(String key) {
+    return ISSUES_CACHE_KEY_PREFIX + key.replace('\\', '/');
   }
 
-  public static  String fileContentHashCacheKey(String key) {
-    return CONTENT_HASHES_KEY + key.replace('\\', '/');
+  public static String measuresCacheKey(String key) {
+    return MEASURES_CACHE_KEY_PREFIX + key.replace('\\', '/');
   }
 }
@@ -0,0 +1,100 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Everything cached by the indexer for a single file, stored as one cache entry: the content hash and, for main files,
+ * the serialized project level symbol table entry. Imported modules are stored separately, in the project level import graph.
+ * An unchanged file then costs a single read and a single copy from the previous analysis.
+ */
+public class FileCacheRecord {
+
+  private static final byte FORMAT_VERSION = 2;
+  private static final int HAS_DESCRIPTORS = 1 << 1;
+
+  private final byte[] contentHash;
+  private final byte[] descriptors;
+
+  FileCacheRecord(byte[] contentHash, @Nullable byte[] descriptors) {
+    this.contentHash = contentHash;
+    this.descriptors = descriptors;
+  }
+
+  public byte[] contentHash() {
+    return contentHash;
+  }
+
+  /**
+   * @return the serialized {@link org.sonar.python.types.protobuf.DescriptorsProtos.ModuleDescriptor}, if any.
+   */
+  @CheckForNull
+  byte[] descriptors() {
+    return descriptors;
+  }
+
+  byte[] toBytes() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(stream)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeByte(descriptors != null ? HAS_DESCRIPTORS : 0);
+      writeBytes(out, contentHash);
+      if (descriptors != null) {
+        writeBytes(out, descriptors);
+      }
+    }
+    return stream.toByteArray();
+  }
+
+  static FileCacheRecord fromBytes(byte[] bytes) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      byte version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported file cache record version: " + version);
+      }
+      int flags = in.readByte();
+      byte[] contentHash = readBytes(in);
+      byte[] descriptors = (flags & HAS_DESCRIPTORS) != 0 ? readBytes(in) : null;
+      return new FileCacheRecord(contentHash, descriptors);
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw new IOException("Invalid length in file cache record: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
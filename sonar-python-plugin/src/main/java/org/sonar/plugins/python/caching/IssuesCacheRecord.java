@@ -0,0 +1,214 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.api.IssueLocation;
+import org.sonar.plugins.python.api.LocationInFile;
+import org.sonar.python.checks.CheckList;
+
+/**
+ * Issues raised on a file during a previous analysis, along with the fingerprint of the active rules at that time.
+ * They can be reported again without parsing the file when neither the file, its transitive imports nor the active rules changed.
+ */
+public class IssuesCacheRecord {
+
+  private static final byte FORMAT_VERSION = 1;
+
+  private final byte[] rulesFingerprint;
+  private final List<CachedIssue> issues;
+
+  public IssuesCacheRecord(byte[] rulesFingerprint, List<CachedIssue> issues) {
+    this.rulesFingerprint = rulesFingerprint;
+    this.issues = issues;
+  }
+
+  public byte[] rulesFingerprint() {
+    return rulesFingerprint;
+  }
+
+  public List<CachedIssue> issues() {
+    return issues;
+  }
+
+  public static class CachedIssue {
+    private final RuleKey ruleKey;
+    private final Integer cost;
+    private final IssueLocation primaryLocation;
+    private final List<IssueLocation> secondaryLocations;
+
+    public CachedIssue(RuleKey ruleKey, @Nullable Integer cost, IssueLocation primaryLocation, List<IssueLocation> secondaryLocations) {
+      this.ruleKey = ruleKey;
+      this.cost = cost;
+      this.primaryLocation = primaryLocation;
+      this.secondaryLocations = secondaryLocations;
+    }
+
+    public RuleKey ruleKey() {
+      return ruleKey;
+    }
+
+    @CheckForNull
+    public Integer cost() {
+      return cost;
+    }
+
+    public IssueLocation primaryLocation() {
+      return primaryLocation;
+    }
+
+    public List<IssueLocation> secondaryLocations() {
+      return secondaryLocations;
+    }
+  }
+
+  /**
+   * Fingerprint of the active rules of the Python repository and of their parameters: issues cached with a different fingerprint
+   * must not be reported again. Only built-in checks are cached, so rules of other repositories do not invalidate cached issues.
+   */
+  public static byte[] rulesFingerprint(ActiveRules activeRules) throws NoSuchAlgorithmException {
+    MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+    List<ActiveRule> rules = new ArrayList<>(activeRules.findByRepository(CheckList.REPOSITORY_KEY));
+    rules.sort(Comparator.comparing(rule -> rule.ruleKey().toString()));
+    for (ActiveRule rule : rules) {
+      messageDigest.update(rule.ruleKey().toString().getBytes(StandardCharsets.UTF_8));
+      for (Map.Entry<String, String> param : new TreeMap<>(rule.params()).entrySet()) {
+        messageDigest.update((";" + param.getKey() + "=" + param.getValue()).getBytes(StandardCharsets.UTF_8));
+      }
+      messageDigest.update((byte) '\n');
+    }
+    return messageDigest.digest();
+  }
+
+  public byte[] toBytes() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(stream)) {
+      out.writeByte(FORMAT_VERSION);
+      out.writeInt(rulesFingerprint.length);
+      out.write(rulesFingerprint);
+      out.writeInt(issues.size());
+      for (CachedIssue issue : issues) {
+        out.writeUTF(issue.ruleKey.toString());
+        out.writeInt(issue.cost != null ? issue.cost : -1);
+        writeLocation(out, issue.primaryLocation);
+        out.writeInt(issue.secondaryLocations.size());
+        for (IssueLocation secondaryLocation : issue.secondaryLocations) {
+          writeLocation(out, secondaryLocation);
+        }
+      }
+    }
+    return stream.toByteArray();
+  }
+
+  public static IssuesCacheRecord fromBytes(byte[] bytes) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      byte version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported issues cache record version: " + version);
+      }
+      byte[] rulesFingerprint = new byte[readSize(in)];
+      in.readFully(rulesFingerprint);
+      int numberOfIssues = readSize(in);
+      List<CachedIssue> issues = new ArrayList<>(numberOfIssues);
+      for (int i = 0; i < numberOfIssues; i++) {
+        RuleKey ruleKey = parseRuleKey(in.readUTF());
+        int cost = in.readInt();
+        IssueLocation primaryLocation = readLocation(in);
+        int numberOfSecondaryLocations = readSize(in);
+        List<IssueLocation> secondaryLocations = new ArrayList<>(numberOfSecondaryLocations);
+        for (int j = 0; j < numberOfSecondaryLocations; j++) {
+          secondaryLocations.add(readLocation(in));
+        }
+        issues.add(new CachedIssue(ruleKey, cost >= 0 ? cost : null, primaryLocation, secondaryLocations));
+      }
+      return new IssuesCacheRecord(rulesFingerprint, issues);
+    }
+  }
+
+  private static void writeLocation(DataOutputStream out, IssueLocation location) throws IOException {
+    writeNullableString(out, location.fileId());
+    writeNullableString(out, location.message());
+    out.writeInt(location.startLine());
+    out.writeInt(location.startLineOffset());
+    out.writeInt(location.endLine());
+    out.writeInt(location.endLineOffset());
+  }
+
+  private static IssueLocation readLocation(DataInputStream in) throws IOException {
+    String fileId = readNullableString(in);
+    String message = readNullableString(in);
+    int startLine = in.readInt();
+    int startLineOffset = in.readInt();
+    int endLine = in.readInt();
+    int endLineOffset = in.readInt();
+    if (startLine == IssueLocation.UNDEFINED_LINE) {
+      return IssueLocation.atFileLevel(message);
+    }
+    if (startLineOffset == IssueLocation.UNDEFINED_OFFSET) {
+      return IssueLocation.atLineLevel(message, startLine);
+    }
+    return IssueLocation.preciseLocation(new LocationInFile(fileId, startLine, startLineOffset, endLine, endLineOffset), message);
+  }
+
+  private static void writeNullableString(DataOutputStream out, @Nullable String string) throws IOException {
+    out.writeBoolean(string != null);
+    if (string != null) {
+      out.writeUTF(string);
+    }
+  }
+
+  @CheckForNull
+  private static String readNullableString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static int readSize(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size < 0 || size > in.available()) {
+      throw new IOException("Invalid size in issues cache record: " + size);
+    }
+    return size;
+  }
+
+  private static RuleKey parseRuleKey(String ruleKey) throws IOException {
+    try {
+      return RuleKey.parse(ruleKey);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid rule key in issues cache record: " + ruleKey, e);
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.symbol.NewSymbol;
+import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
+import org.sonar.python.caching.VarLengthInputStream;
+import org.sonar.python.caching.VarLengthOutputStream;
+
+/**
+ * Measures, syntax highlighting and symbol references computed for a file, so that they can be pushed again
+ * without parsing the file when it did not change since the previous analysis.
+ * The record is filled while the file is analyzed: highlighting and symbols are captured by wrapping the
+ * {@link NewHighlighting} and {@link NewSymbolTable} which receive them.
+ */
+public class MeasuresCacheRecord {
+
+  private static final int FORMAT_VERSION = 2;
+  private static final TypeOfText[] TYPES_OF_TEXT = TypeOfText.values();
+
+  private final Map<String, Integer> metrics = new LinkedHashMap<>();
+  private Set<Integer> linesOfCode = Collections.emptySet();
+  private Set<Integer> executableLines = Collections.emptySet();
+  private Set<Integer> linesWithNoSonar = Collections.emptySet();
+  private final List<Highlighting> highlightings = new ArrayList<>();
+  private final List<List<int[]>> symbols = new ArrayList<>();
+
+  private static class Highlighting {
+    private final int[] range;
+    private final TypeOfText typeOfText;
+
+    private Highlighting(int[] range, TypeOfText typeOfText) {
+      this.range = range;
+      this.typeOfText = typeOfText;
+    }
+  }
+
+  public void addMetric(String metricKey, int value) {
+    metrics.put(metricKey, value);
+  }
+
+  public Map<String, Integer> metrics() {
+    return metrics;
+  }
+
+  public void setLinesOfCode(Set<Integer> linesOfCode) {
+    this.linesOfCode = linesOfCode;
+  }
+
+  public Set<Integer> linesOfCode() {
+    return linesOfCode;
+  }
+
+  public void setExecutableLines(Set<Integer> executableLines) {
+    this.executableLines = executableLines;
+  }
+
+  public Set<Integer> executableLines() {
+    return executableLines;
+  }
+
+  public void setLinesWithNoSonar(Set<Integer> linesWithNoSonar) {
+    this.linesWithNoSonar = linesWithNoSonar;
+  }
+
+  public Set<Integer> linesWithNoSonar() {
+    return linesWithNoSonar;
+  }
+
+  /**
+   * @return a {@link NewHighlighting} forwarding to the given one and recording the highlighted ranges in this record.
+   */
+  public NewHighlighting recording(NewHighlighting newHighlighting) {
+    return new RecordingHighlighting(newHighlighting);
+  }
+
+  /**
+   * @return a {@link NewSymbolTable} forwarding to the given one and recording the symbols and their references in this record.
+   */
+  public NewSymbolTable recording(NewSymbolTable newSymbolTable) {
+    return new RecordingSymbolTable(newSymbolTable);
+  }
+
+  public void replayHighlighting(NewHighlighting newHighlighting) {
+    for (Highlighting highlighting : highlightings) {
+      int[] range = highlighting.range;
+      newHighlighting.highlight(range[0], range[1], range[2], range[3], highlighting.typeOfText);
+    }
+    newHighlighting.save();
+  }
+
+  public void replaySymbols(NewSymbolTable newSymbolTable) {
+    for (List<int[]> symbol : symbols) {
+      int[] declaration = symbol.get(0);
+      NewSymbol newSymbol = newSymbolTable.newSymbol(declaration[0], declaration[1], declaration[2], declaration[3]);
+      for (int[] reference : symbol.subList(1, symbol.size())) {
+        newSymbol.newReference(reference[0], reference[1], reference[2], reference[3]);
+      }
+    }
+    newSymbolTable.save();
+  }
+
+  public byte[] toBytes() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      new Serializer(out).write(this);
+    }
+    return stream.toByteArray();
+  }
+
+  public static MeasuresCacheRecord fromBytes(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      return new Deserializer(in, bytes.length).read();
+    }
+  }
+
+  /**
+   * Integers are written with a variable length encoding. Lines are delta-encoded, as in {@link org.sonar.python.caching.CpdSerializer}:
+   * the lines of a set relatively to the previous line of the set, and the start line of a range relatively to the start line of
+   * the previous range. The end line of a range is written relatively to its start line.
+   */
+  private static class Serializer {
+    private final VarLengthOutputStream out;
+    private int previousStartLine = 0;
+
+    private Serializer(VarLengthOutputStream out) {
+      this.out = out;
+    }
+
+    private void write(MeasuresCacheRecord record) throws IOException {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(record.metrics.size());
+      for (Map.Entry<String, Integer> metric : record.metrics.entrySet()) {
+        out.writeUTF(metric.getKey());
+        out.writeInt(metric.getValue());
+      }
+      writeLines(record.linesOfCode);
+      writeLines(record.executableLines);
+      writeLines(record.linesWithNoSonar);
+      out.writeInt(record.highlightings.size());
+      for (Highlighting highlighting : record.highlightings) {
+        writeRange(highlighting.range);
+        out.writeInt(highlighting.typeOfText.ordinal());
+      }
+      out.writeInt(record.symbols.size());
+      for (List<int[]> symbol : record.symbols) {
+        out.writeInt(symbol.size());
+        for (int[] range : symbol) {
+          writeRange(range);
+        }
+      }
+    }
+
+    private void writeLines(Set<Integer> lines) throws IOException {
+      out.writeInt(lines.size());
+      int previousLine = 0;
+      for (int line : new TreeSet<>(lines)) {
+        out.writeInt(line - previousLine);
+        previousLine = line;
+      }
+    }
+
+    private void writeRange(int[] range) throws IOException {
+      out.writeInt(range[0] - previousStartLine);
+      out.writeInt(range[1]);
+      out.writeInt(range[2] - range[0]);
+      out.writeInt(range[3]);
+      previousStartLine = range[0];
+    }
+  }
+
+  private static class Deserializer {
+    private final VarLengthInputStream in;
+    private final int maxSize;
+    private int previousStartLine = 0;
+
+    /**
+     * @param maxSize upper bound of the number of elements of any collection in the record: each element takes at least one byte.
+     */
+    private Deserializer(VarLengthInputStream in, int maxSize) {
+      this.in = in;
+      this.maxSize = maxSize;
+    }
+
+    private MeasuresCacheRecord read() throws IOException {
+      int version = in.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported measures cache record version: " + version);
+      }
+      MeasuresCacheRecord record = new MeasuresCacheRecord();
+      int numberOfMetrics = readSize();
+      for (int i = 0; i < numberOfMetrics; i++) {
+        record.addMetric(in.readUTF(), in.readInt());
+      }
+      record.setLinesOfCode(readLines());
+      record.setExecutableLines(readLines());
+      record.setLinesWithNoSonar(readLines());
+      int numberOfHighlightings = readSize();
+      for (int i = 0; i < numberOfHighlightings; i++) {
+        int[] range = readRange();
+        int typeOfText = in.readInt();
+        if (typeOfText < 0 || typeOfText >= TYPES_OF_TEXT.length) {
+          throw new IOException("Invalid type of text in measures cache record: " + typeOfText);
+        }
+        record.highlightings.add(new Highlighting(range, TYPES_OF_TEXT[typeOfText]));
+      }
+      int numberOfSymbols = readSize();
+      for (int i = 0; i < numberOfSymbols; i++) {
+        int numberOfRanges = readSize();
+        if (numberOfRanges == 0) {
+          throw new IOException("Symbol without declaration in measures cache record");
+        }
+        List<int[]> symbol = new ArrayList<>(numberOfRanges);
+        for (int j = 0; j < numberOfRanges; j++) {
+          symbol.add(readRange());
+        }
+        record.symbols.add(symbol);
+      }
+      return record;
+    }
+
+    private Set<Integer> readLines() throws IOException {
+      int size = readSize();
+      Set<Integer> lines = new HashSet<>(size);
+      int line = 0;
+      for (int i = 0; i < size; i++) {
+        line += in.readInt();
+        lines.add(line);
+      }
+      return lines;
+    }
+
+    private int[] readRange() throws IOException {
+      int startLine = previousStartLine + in.readInt();
+      int startLineOffset = in.readInt();
+      int endLine = startLine + in.readInt();
+      int endLineOffset = in.readInt();
+      previousStartLine = startLine;
+      return new int[] {startLine, startLineOffset, endLine, endLineOffset};
+    }
+
+    private int readSize() throws IOException {
+      int size = in.readInt();
+      if (size < 0 || size > maxSize) {
+        throw new IOException("Invalid size in measures cache record: " + size);
+      }
+      return size;
+    }
+  }
+
+  private static int[] toRange(TextRange textRange) {
+    return new int[] {textRange.start().line(), textRange.start().lineOffset(), textRange.end().line(), textRange.end().lineOffset()};
+  }
+
+  private class RecordingHighlighting implements NewHighlighting {
+    private final NewHighlighting delegate;
+
+    private RecordingHighlighting(NewHighlighting delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public NewHighlighting onFile(InputFile inputFile) {
+      delegate.onFile(inputFile);
+      return this;
+    }
+
+    @Override
+    public NewHighlighting highlight(TextRange range, TypeOfText typeOfText) {
+      delegate.highlight(range, typeOfText);
+      highlightings.add(new Highlighting(toRange(range), typeOfText));
+      return this;
+    }
+
+    @Override
+    public NewHighlighting highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, TypeOfText typeOfText) {
+      delegate.highlight(startLine, startLineOffset, endLine, endLineOffset, typeOfText);
+      highlightings.add(new Highlighting(new int[] {startLine, startLineOffset, endLine, endLineOffset}, typeOfText));
+      return this;
+    }
+
+    @Override
+    public void save() {
+      delegate.save();
+    }
+  }
+
+  private class RecordingSymbolTable implements NewSymbolTable {
+    private final NewSymbolTable delegate;
+
+    private RecordingSymbolTable(NewSymbolTable delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public NewSymbolTable onFile(InputFile inputFile) {
+      delegate.onFile(inputFile);
+      return this;
+    }
+
+    @Override
+    public NewSymbol newSymbol(TextRange range) {
+      return new RecordingSymbol(delegate.newSymbol(range), toRange(range));
+    }
+
+    @Override
+    public NewSymbol newSymbol(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+      return new RecordingSymbol(delegate.newSymbol(startLine, startLineOffset, endLine, endLineOffset), new int[] {startLine, startLineOffset, endLine, endLineOffset});
+    }
+
+    @Override
+    public void save() {
+      delegate.save();
+    }
+  }
+
+  private class RecordingSymbol implements NewSymbol {
+    private final NewSymbol delegate;
+    private final List<int[]> ranges = new ArrayList<>();
+
+    private RecordingSymbol(NewSymbol delegate, int[] declaration) {
+      this.delegate = delegate;
+      ranges.add(declaration);
+      symbols.add(ranges);
+    }
+
+    @Override
+    public NewSymbol newReference(TextRange range) {
+      delegate.newReference(range);
+      ranges.add(toRange(range));
+      return this;
+    }
+
+    @Override
+    public NewSymbol newReference(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+      delegate.newReference(startLine, startLineOffset, endLine, endLineOffset);
+      ranges.add(new int[] {startLine, startLineOffset, endLine, endLineOffset});
+      return this;
+    }
+  }
+}
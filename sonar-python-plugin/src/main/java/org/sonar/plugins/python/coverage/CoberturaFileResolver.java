@@ -0,0 +1,165 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.python.InputFileIndex;
+
+/**
+ * Resolves the file names of a Cobertura report against the input files of the project.
+ * A file name is resolved if it exists in exactly one of the source directories. Lookups are done on an in-memory index
+ * of the input files, and on the memoized entries of directories for files which are not indexed. Resolutions are memoized so that they can be shared by all the reports of an analysis,
+ * which may be parsed concurrently.
+ */
+class CoberturaFileResolver {
+
+  static final String NOT_FOUND_MESSAGE = "Cannot resolve the file path '%s' of the coverage report, the file does not exist in all 'source'.";
+  static final String AMBIGUITY_MESSAGE = "Cannot resolve the file path '%s' of the coverage report, ambiguity, the file exists in several 'source'.";
+
+  private final InputFileIndex inputFileIndex;
+  private final Map<List<File>, Map<String, Resolution>> resolutionsByBaseDirectories = new ConcurrentHashMap<>();
+  private final Map<Path, Set<String>> entriesByDirectory = new ConcurrentHashMap<>();
+
+  CoberturaFileResolver(FileSystem fileSystem) {
+    this.inputFileIndex = new InputFileIndex(fileSystem);
+  }
+
+  Resolution resolve(List<File> baseDirectories, String filename) {
+    return resolutionsByBaseDirectories
+      .computeIfAbsent(baseDirectories, k -> new ConcurrentHashMap<>())
+      .computeIfAbsent(filename, f -> computeResolution(baseDirectories, f));
+  }
+
+  private Resolution computeResolution(List<File> baseDirectories, String filename) {
+    File file = new File(filename);
+    if (file.isAbsolute()) {
+      return exists(file) ? resolvedOrIgnored(file) : Resolution.unresolved(NOT_FOUND_MESSAGE);
+    }
+    List<File> existingFiles = baseDirectories.stream()
+      .map(base -> new File(base, filename))
+      .filter(this::exists)
+      .collect(Collectors.toList());
+    if (existingFiles.isEmpty()) {
+      return Resolution.unresolved(NOT_FOUND_MESSAGE);
+    }
+    if (existingFiles.size() > 1) {
+      return Resolution.unresolved(AMBIGUITY_MESSAGE);
+    }
+    return resolvedOrIgnored(existingFiles.get(0));
+  }
+
+  private Resolution resolvedOrIgnored(File file) {
+    // Files which exist on disk but are not part of the project are silently ignored
+    InputFile inputFile = indexedInputFile(file);
+    return inputFile != null ? Resolution.resolved(inputFile) : Resolution.ignored();
+  }
+
+  /**
+   * Indexed files are known to exist. Other files are looked up in the entries of their directory,
+   * which are read once, instead of accessing the disk for each file name.
+   */
+  private boolean exists(File file) {
+    Path path = absolutePath(file);
+    if (path == null) {
+      return false;
+    }
+    if (inputFileIndex.inputFile(path) != null) {
+      return true;
+    }
+    Path directory = path.getParent();
+    Path name = path.getFileName();
+    if (directory == null || name == null) {
+      return file.exists();
+    }
+    return entriesByDirectory.computeIfAbsent(directory, CoberturaFileResolver::directoryEntries).contains(name.toString());
+  }
+
+  private static Set<String> directoryEntries(Path directory) {
+    String[] entries = directory.toFile().list();
+    return entries == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(entries));
+  }
+
+  @CheckForNull
+  private InputFile indexedInputFile(File file) {
+    Path path = absolutePath(file);
+    return path != null ? inputFileIndex.inputFile(path) : null;
+  }
+
+  @CheckForNull
+  private static Path absolutePath(File file) {
+    try {
+      return file.toPath().toAbsolutePath().normalize();
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  static class Resolution {
+
+    private static final Resolution IGNORED = new Resolution(null, null);
+
+    private final InputFile inputFile;
+    private final String unresolvedMessage;
+
+    private Resolution(@Nullable InputFile inputFile, @Nullable String unresolvedMessage) {
+      this.inputFile = inputFile;
+      this.unresolvedMessage = unresolvedMessage;
+    }
+
+    static Resolution resolved(InputFile inputFile) {
+      return new Resolution(inputFile, null);
+    }
+
+    static Resolution unresolved(String message) {
+      return new Resolution(null, message);
+    }
+
+    static Resolution ignored() {
+      return IGNORED;
+    }
+
+    @CheckForNull
+    InputFile inputFile() {
+      return inputFile;
+    }
+
+    /**
+     * Message format explaining why the file name could not be resolved, or null when there is nothing to report.
+     */
+    @CheckForNull
+    String unresolvedMessage() {
+      return unresolvedMessage;
+    }
+  }
+}
@@ -26,15 +26,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.xml.stream.XMLStreamException;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.staxmate.in.SMInputCursor;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.EmptyReportException;
@@ -45,14 +42,22 @@ public class CoberturaParser {
   private static final Logger LOG = Loggers.get(CoberturaParser.class);
 
   private final Set<String> errors = new HashSet<>();
+  private final CoberturaFileResolver fileResolver;
   private int unresolvedFilenameCount;
 
-  public void parseReport(File xmlFile, SensorContext context, final Map<InputFile, NewCoverage> coverageData) throws XMLStreamException {
+  CoberturaParser(CoberturaFileResolver fileResolver) {
+    this.fileResolver = fileResolver;
+  }
+
+  /**
+   * Collects the coverage of the report into {@code coverageData}. The sensor context is not accessed,
+   * so that several reports can be parsed concurrently.
+   */
+  public void parseReport(File xmlFile, File defaultBaseDirectory, final Map<InputFile, FileCoverage> coverageData) throws XMLStreamException {
     LOG.info("Parsing report '{}'", xmlFile);
     unresolvedFilenameCount = 0;
 
     StaxParser parser = new StaxParser(rootCursor -> {
-      File defaultBaseDirectory = context.fileSystem().baseDir();
       List<File> baseDirectories = Collections.singletonList(defaultBaseDirectory);
       try {
         rootCursor.advance();
@@ -65,7 +70,7 @@ public class CoberturaParser {
         if ("sources".equals(cursor.getLocalName())) {
           baseDirectories = extractBaseDirectories(cursor, defaultBaseDirectory);
         } else if ("packages".equals(cursor.getLocalName())) {
-          collectFileMeasures(cursor.descendantElementCursor("class"), context, coverageData, baseDirectories);
+          collectFileMeasures(cursor.descendantElementCursor("class"), coverageData, baseDirectories);
         }
       }
     });
@@ -99,13 +104,13 @@ public class CoberturaParser {
     return baseDirectories;
   }
 
-  private void collectFileMeasures(SMInputCursor classCursor, SensorContext context, Map<InputFile, NewCoverage> coverageData, List<File> baseDirectories)
+  private void collectFileMeasures(SMInputCursor classCursor, Map<InputFile, FileCoverage> coverageData, List<File> baseDirectories)
     throws XMLStreamException {
     while (classCursor.getNext() != null) {
       String filename = FilenameUtils.normalize(classCursor.getAttrValue("filename"));
-      InputFile inputFile = resolve(context, baseDirectories, filename);
+      InputFile inputFile = resolve(baseDirectories, filename);
       if (inputFile != null) {
-        NewCoverage coverage = coverageData.computeIfAbsent(inputFile, f -> context.newCoverage().onFile(f));
+        FileCoverage coverage = coverageData.computeIfAbsent(inputFile, FileCoverage::new);
         collectFileData(classCursor, coverage);
       } else {
         classCursor.advance();
@@ -114,30 +119,13 @@ public class CoberturaParser {
   }
 
   @Nullable
-  private InputFile resolve(SensorContext context, List<File> baseDirectories, String filename) {
-    String absolutePath;
-    File file = new File(filename);
-    if (file.isAbsolute()) {
-      if (!file.exists()) {
-        logUnresolvedFile("Cannot resolve the file path '%s' of the coverage report, the file does not exist in all 'source'.", filename);
-      }
-      absolutePath = file.getAbsolutePath();
-    } else {
-      List<File> fileList = baseDirectories.stream()
-        .map(base -> new File(base, filename))
-        .filter(File::exists)
-        .collect(Collectors.toList());
-      if (fileList.isEmpty()) {
-        logUnresolvedFile("Cannot resolve the file path '%s' of the coverage report, the file does not exist in all 'source'.", filename);
-        return null;
-      }
-      if (fileList.size() > 1) {
-        logUnresolvedFile("Cannot resolve the file path '%s' of the coverage report, ambiguity, the file exists in several 'source'.", filename);
-        return null;
-      }
-      absolutePath = fileList.get(0).getAbsolutePath();
+  private InputFile resolve(List<File> baseDirectories, String filename) {
+    CoberturaFileResolver.Resolution resolution = fileResolver.resolve(baseDirectories, filename);
+    String unresolvedMessage = resolution.unresolvedMessage();
+    if (unresolvedMessage != null) {
+      logUnresolvedFile(unresolvedMessage, filename);
     }
-    return context.fileSystem().inputFile(context.fileSystem().predicates().hasAbsolutePath(absolutePath));
+    return resolution.inputFile();
   }
 
   private void logUnresolvedFile(String message, String filename) {
@@ -149,7 +137,7 @@ public class CoberturaParser {
     }
   }
 
-  private static void collectFileData(SMInputCursor classCursor, NewCoverage coverage) throws XMLStreamException {
+  private static void collectFileData(SMInputCursor classCursor, FileCoverage coverage) throws XMLStreamException {
     SMInputCursor line = classCursor.childElementCursor("lines").advance().childElementCursor("line");
     while (line.getNext() != null) {
       int lineId = Integer.parseInt(line.getAttrValue("number"));
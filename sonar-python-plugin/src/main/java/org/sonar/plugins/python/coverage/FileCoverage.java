@@ -0,0 +1,126 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import java.util.Arrays;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
+
+/**
+ * Line and branch hits of a single file, stored in primitive arrays indexed by line number.
+ * Within a report the first measure of a line wins, as for {@link NewCoverage}. When merging reports,
+ * hits are summed and conditions take the maximum, as done by SonarQube when several coverages are saved on the same file.
+ * As for {@link NewCoverage}, lines outside of the file are rejected, so that arrays never grow beyond the size of the file.
+ */
+class FileCoverage {
+
+  private static final int NONE = -1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final InputFile inputFile;
+  private final int lines;
+  private int[] hits;
+  private int[] conditions;
+  private int[] coveredConditions;
+  private int maxLine = 0;
+
+  FileCoverage(InputFile inputFile) {
+    this.inputFile = inputFile;
+    this.lines = inputFile.lines();
+    int initialCapacity = Math.min(INITIAL_CAPACITY, lines + 1);
+    hits = newArray(initialCapacity);
+    conditions = newArray(initialCapacity);
+    coveredConditions = newArray(initialCapacity);
+  }
+
+  void lineHits(int line, int lineHits) {
+    ensureCapacity(line);
+    if (hits[line] == NONE) {
+      hits[line] = lineHits;
+    }
+  }
+
+  void conditions(int line, int lineConditions, int lineCoveredConditions) {
+    ensureCapacity(line);
+    if (conditions[line] == NONE) {
+      conditions[line] = lineConditions;
+      coveredConditions[line] = lineCoveredConditions;
+    }
+  }
+
+  void merge(FileCoverage other) {
+    if (other.maxLine == 0) {
+      return;
+    }
+    ensureCapacity(other.maxLine);
+    for (int line = 1; line <= other.maxLine; line++) {
+      hits[line] = sum(hits[line], other.hits[line]);
+      conditions[line] = Math.max(conditions[line], other.conditions[line]);
+      coveredConditions[line] = Math.max(coveredConditions[line], other.coveredConditions[line]);
+    }
+  }
+
+  void save(NewCoverage coverage) {
+    for (int line = 1; line <= maxLine; line++) {
+      if (hits[line] != NONE) {
+        coverage.lineHits(line, hits[line]);
+      }
+      if (conditions[line] != NONE) {
+        coverage.conditions(line, conditions[line], coveredConditions[line]);
+      }
+    }
+    coverage.save();
+  }
+
+  private void ensureCapacity(int line) {
+    if (line <= 0) {
+      throw new IllegalStateException("Line number must be strictly positive: " + line);
+    }
+    if (line > lines) {
+      throw new IllegalStateException(String.format("Line %d is out of range in the file %s (lines: %d)", line, inputFile, lines));
+    }
+    if (line >= hits.length) {
+      int newLength = Math.min(Math.max(hits.length * 2, line + 1), lines + 1);
+      hits = grow(hits, newLength);
+      conditions = grow(conditions, newLength);
+      coveredConditions = grow(coveredConditions, newLength);
+    }
+    maxLine = Math.max(maxLine, line);
+  }
+
+  private static int sum(int value, int otherValue) {
+    if (value == NONE) {
+      return otherValue;
+    }
+    return otherValue == NONE ? value : (value + otherValue);
+  }
+
+  private static int[] newArray(int length) {
+    int[] array = new int[length];
+    Arrays.fill(array, NONE);
+    return array;
+  }
+
+  private static int[] grow(int[] array, int newLength) {
+    int[] newArray = Arrays.copyOf(array, newLength);
+    Arrays.fill(newArray, array.length, newLength, NONE);
+    return newArray;
+  }
+}
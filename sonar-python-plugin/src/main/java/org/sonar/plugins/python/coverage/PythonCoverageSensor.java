@@ -20,20 +20,25 @@
 package org.sonar.plugins.python.coverage;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import javax.xml.stream.XMLStreamException;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
-import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -73,14 +78,20 @@ public class PythonCoverageSensor implements Sensor {
 
     warnDeprecatedPropertyUsage(config);
 
-    HashSet<InputFile> filesCovered = new HashSet<>();
     List<File> reports = getCoverageReports(baseDir, config);
     if (!reports.isEmpty()) {
       LOG.info("Python test coverage");
-      for (File report : uniqueAbsolutePaths(reports)) {
-        Map<InputFile, NewCoverage> coverageMeasures = parseReport(report, context);
-        saveMeasures(coverageMeasures, filesCovered);
+      CoberturaFileResolver fileResolver = new CoberturaFileResolver(context.fileSystem());
+      List<ReportCoverage> reportCoverages = parseReports(new ArrayList<>(uniqueAbsolutePaths(reports)), context.fileSystem().baseDir(), fileResolver);
+      Map<InputFile, FileCoverage> coverageMeasures = new LinkedHashMap<>();
+      for (ReportCoverage reportCoverage : reportCoverages) {
+        reportProblems(reportCoverage);
+        reportCoverage.coverageMeasures.forEach((inputFile, fileCoverage) -> coverageMeasures.merge(inputFile, fileCoverage, (previous, current) -> {
+          previous.merge(current);
+          return previous;
+        }));
       }
+      saveMeasures(coverageMeasures, context);
     }
   }
 
@@ -108,33 +119,83 @@ public class PythonCoverageSensor implements Sensor {
       .collect(Collectors.toCollection(LinkedHashSet::new));
   }
 
-  private Map<InputFile, NewCoverage> parseReport(File report, SensorContext context) {
-    Map<InputFile, NewCoverage> coverageMeasures = new HashMap<>();
+  /**
+   * Reports are parsed concurrently. Results are returned in the order of the reports, so that problems
+   * are reported and measures are merged deterministically.
+   */
+  private static List<ReportCoverage> parseReports(List<File> reports, File baseDir, CoberturaFileResolver fileResolver) {
+    if (reports.size() == 1) {
+      return Collections.singletonList(parseReport(reports.get(0), baseDir, fileResolver));
+    }
+    int threads = Math.min(reports.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
     try {
-      CoberturaParser parser = new CoberturaParser();
-      parser.parseReport(report, context, coverageMeasures);
-      if (!parser.errors().isEmpty()) {
-        String parseErrors = String.join("%n", parser.errors());
-        analysisWarnings.addUnique(String.format("The following error(s) occurred while trying to import coverage report:%n%s", parseErrors));
+      List<Future<ReportCoverage>> futures = new ArrayList<>();
+      for (File report : reports) {
+        futures.add(executor.submit(() -> parseReport(report, baseDir, fileResolver)));
+      }
+      List<ReportCoverage> reportCoverages = new ArrayList<>();
+      for (Future<ReportCoverage> future : futures) {
+        reportCoverages.add(future.get());
       }
+      return reportCoverages;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Error while parsing coverage reports", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing coverage reports", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ReportCoverage parseReport(File report, File baseDir, CoberturaFileResolver fileResolver) {
+    ReportCoverage reportCoverage = new ReportCoverage(report);
+    try {
+      CoberturaParser parser = new CoberturaParser(fileResolver);
+      parser.parseReport(report, baseDir, reportCoverage.coverageMeasures);
+      reportCoverage.errors.addAll(parser.errors());
     } catch (EmptyReportException e) {
-      analysisWarnings.addUnique(String.format("The coverage report '%s' has been ignored because it seems to be empty.", report));
-      LOG.warn("The report '{}' seems to be empty, ignoring. '{}'", report, e);
+      reportCoverage.emptyReportException = e;
     } catch (XMLStreamException e) {
       throw new IllegalStateException("Error parsing the report '" + report + "'", e);
     }
-    return coverageMeasures;
+    return reportCoverage;
   }
 
-  private static void saveMeasures(Map<InputFile, NewCoverage> coverageMeasures, HashSet<InputFile> coveredFiles) {
-    for (Map.Entry<InputFile, NewCoverage> entry : coverageMeasures.entrySet()) {
+  private void reportProblems(ReportCoverage reportCoverage) {
+    File report = reportCoverage.report;
+    if (reportCoverage.emptyReportException != null) {
+      analysisWarnings.addUnique(String.format("The coverage report '%s' has been ignored because it seems to be empty.", report));
+      LOG.warn("The report '{}' seems to be empty, ignoring. '{}'", report, reportCoverage.emptyReportException);
+    } else if (!reportCoverage.errors.isEmpty()) {
+      String parseErrors = String.join("%n", reportCoverage.errors);
+      analysisWarnings.addUnique(String.format("The following error(s) occurred while trying to import coverage report:%n%s", parseErrors));
+    }
+  }
+
+  private static void saveMeasures(Map<InputFile, FileCoverage> coverageMeasures, SensorContext context) {
+    for (Map.Entry<InputFile, FileCoverage> entry : coverageMeasures.entrySet()) {
       InputFile inputFile = entry.getKey();
-      coveredFiles.add(inputFile);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Saving coverage measures for file '{}'", inputFile.toString());
       }
-      entry.getValue()
-        .save();
+      entry.getValue().save(context.newCoverage().onFile(inputFile));
+    }
+  }
+
+  private static class ReportCoverage {
+    private final File report;
+    private final Map<InputFile, FileCoverage> coverageMeasures = new HashMap<>();
+    private final Set<String> errors = new LinkedHashSet<>();
+    private EmptyReportException emptyReportException;
+
+    ReportCoverage(File report) {
+      this.report = report;
     }
   }
 }
@@ -39,7 +39,6 @@ import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.tree.TreeUtils;
 
 import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_STRING_TABLE_KEY_PREFIX;
 
 public class PythonCpdAnalyzer {
 
@@ -76,23 +75,18 @@ public class PythonCpdAnalyzer {
   }
 
   public boolean pushCachedCpdTokens(InputFile inputFile, CacheContext cacheContext) {
-    String dataKey = dataCacheKey(inputFile.key());
-    String tableKey = stringTableCacheKey(inputFile.key());
-    byte[] dataBytes = cacheContext.getReadCache().readBytes(dataKey);
-    byte[] tableBytes = cacheContext.getReadCache().readBytes(tableKey);
-    if (dataBytes == null || tableBytes == null) {
+    String key = cacheKey(inputFile.key());
+    byte[] bytes = cacheContext.getReadCache().readBytes(key);
+    if (bytes == null) {
       return false;
     }
 
     try {
-      List<CpdSerializer.TokenInfo> tokens = CpdSerializer.deserialize(dataBytes, tableBytes);
-
       NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
-      tokens.forEach(tokenInfo ->
-        cpdTokens.addToken(tokenInfo.startLine, tokenInfo.startLineOffset, tokenInfo.endLine, tokenInfo.endLineOffset, tokenInfo.value));
+      // Tokens are pushed while being decoded: they are only saved if the whole record could be read
+      CpdSerializer.deserialize(bytes, cpdTokens::addToken);
       cpdTokens.save();
-      cacheContext.getWriteCache().copyFromPrevious(dataKey);
-      cacheContext.getWriteCache().copyFromPrevious(tableKey);
+      cacheContext.getWriteCache().copyFromPrevious(key);
       return true;
     } catch (IOException e) {
       LOG.warn("Failed to deserialize CPD tokens ({}: {})", e.getClass().getSimpleName(), e.getMessage());
@@ -110,9 +104,7 @@ public class PythonCpdAnalyzer {
     try {
       String fileKey = visitorContext.pythonFile().key();
 
-      CpdSerializer.SerializationResult result = CpdSerializer.serialize(tokensToCache);
-      cacheContext.getWriteCache().write(stringTableCacheKey(fileKey), result.stringTable);
-      cacheContext.getWriteCache().write(dataCacheKey(fileKey), result.data);
+      cacheContext.getWriteCache().write(cacheKey(fileKey), CpdSerializer.serialize(tokensToCache));
     } catch (Exception e) {
       LOG.warn("Could not write CPD tokens to cache ({}: {})", e.getClass().getSimpleName(), e.getMessage());
     }
@@ -129,11 +121,7 @@ public class PythonCpdAnalyzer {
       type.equals(GenericTokenType.EOF);
   }
 
-  private static String dataCacheKey(String fileKey) {
+  private static String cacheKey(String fileKey) {
     return CPD_TOKENS_CACHE_KEY_PREFIX + fileKey.replace('\\', '/');
   }
-
-  private static String stringTableCacheKey(String fileKey) {
-    return CPD_TOKENS_STRING_TABLE_KEY_PREFIX + fileKey.replace('\\', '/');
-  }
 }
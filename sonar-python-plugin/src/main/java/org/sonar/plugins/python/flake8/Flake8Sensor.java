@@ -21,7 +21,6 @@ package org.sonar.plugins.python.flake8;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 import java.util.Set;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.config.Configuration;
@@ -29,7 +28,6 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.ExternalIssuesSensor;
 import org.sonar.plugins.python.TextReportReader;
-import org.sonar.plugins.python.TextReportReader.Issue;
 
 public class Flake8Sensor extends ExternalIssuesSensor {
 
@@ -41,8 +39,7 @@ public class Flake8Sensor extends ExternalIssuesSensor {
 
   @Override
   protected void importReport(File reportPath, SensorContext context, Set<String> unresolvedInputFiles) throws IOException {
-    List<Issue> issues = new TextReportReader(TextReportReader.COLUMN_ONE_BASED).parse(reportPath, context.fileSystem());
-    issues.forEach(i -> saveIssue(context, i, unresolvedInputFiles, LINTER_KEY));
+    new TextReportReader(TextReportReader.COLUMN_ONE_BASED).parse(reportPath, context.fileSystem(), i -> saveIssue(context, i, unresolvedInputFiles, LINTER_KEY));
   }
 
   @Override
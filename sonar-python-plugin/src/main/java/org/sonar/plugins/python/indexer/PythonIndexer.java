@@ -38,6 +38,7 @@ import org.sonar.python.parser.PythonParser;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
 import org.sonar.python.tree.PythonTreeMaker;
 
+import static org.sonar.plugins.python.api.PythonVersionUtils.PYTHON_VERSION_KEY;
 import static org.sonar.python.semantic.SymbolUtils.pythonPackageName;
 
 public abstract class PythonIndexer {
@@ -104,6 +105,20 @@ public abstract class PythonIndexer {
 
   public abstract CacheContext cacheContext();
 
+  protected static String getCacheVersion(SensorContext context) {
+    String implementationVersion = getImplementationVersion(PythonIndexer.class);
+    return context.config().get(PYTHON_VERSION_KEY).map(v -> implementationVersion + ";" + v).orElse(implementationVersion);
+  }
+
+  private static String getImplementationVersion(Class<?> cls) {
+    String implementationVersion = cls.getPackage().getImplementationVersion();
+    if (implementationVersion == null) {
+      LOG.warn("Implementation version of the Python plugin not found. Cached data may not be invalidated properly, which may lead to inaccurate analysis results.");
+      return "unknownPluginVersion";
+    }
+    return implementationVersion;
+  }
+
   class GlobalSymbolsScanner extends Scanner {
 
     protected GlobalSymbolsScanner(SensorContext context) {
@@ -0,0 +1,131 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.indexer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Local store of the project symbol table entries computed by SonarLint, keyed by input file key.
+ * SonarLint has no server-side cache: this store allows IDE restarts to reload unchanged modules instead of re-parsing them.
+ */
+class SonarLintIndexStore {
+
+  static final String FILE_NAME = "python-project-symbol-table.bin";
+  private static final Logger LOG = Loggers.get(SonarLintIndexStore.class);
+
+  private final Path path;
+  private final String version;
+
+  SonarLintIndexStore(Path directory, String version) {
+    this.path = directory.resolve(FILE_NAME);
+    this.version = version;
+  }
+
+  /**
+   * @return the stored entries, or an empty map if the store does not exist, is unreadable or was written by another version.
+   */
+  Map<String, Entry> load() {
+    if (!Files.isRegularFile(path)) {
+      return Collections.emptyMap();
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      String storedVersion = in.readUTF();
+      if (!version.equals(storedVersion)) {
+        LOG.debug("Project symbol table store version has changed (retrieved: \"{}\", current: \"{}\"), it will not be used.", storedVersion, version);
+        return Collections.emptyMap();
+      }
+      int size = in.readInt();
+      Map<String, Entry> entries = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        String key = in.readUTF();
+        entries.put(key, new Entry(readBytes(in), readBytes(in)));
+      }
+      return entries;
+    } catch (IOException e) {
+      LOG.debug("Failed to read project symbol table store \"{}\": {}", path, e.getMessage());
+      return Collections.emptyMap();
+    }
+  }
+
+  void save(Map<String, Entry> entries) {
+    Path tmpFile = null;
+    try {
+      tmpFile = Files.createTempFile(path.getParent(), FILE_NAME, ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        out.writeUTF(version);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          out.writeUTF(entry.getKey());
+          writeBytes(out, entry.getValue().contentHash);
+          writeBytes(out, entry.getValue().descriptors);
+        }
+      }
+      Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.debug("Failed to write project symbol table store \"{}\": {}", path, e.getMessage());
+      deleteQuietly(tmpFile);
+    }
+  }
+
+  private static void deleteQuietly(@Nullable Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete temporary file \"{}\"", file);
+    }
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static class Entry {
+    final byte[] contentHash;
+    final byte[] descriptors;
+
+    Entry(byte[] contentHash, byte[] descriptors) {
+      this.contentHash = contentHash;
+      this.descriptors = descriptors;
+    }
+  }
+}
@@ -19,12 +19,19 @@
  */
 package org.sonar.plugins.python.indexer;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
@@ -32,11 +39,17 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.Python;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.python.caching.CacheContextImpl;
+import org.sonar.python.index.Descriptor;
+import org.sonar.python.semantic.SymbolUtils;
+import org.sonar.python.types.protobuf.DescriptorsProtos;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileListener;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileSystem;
 
+import static org.sonar.python.index.DescriptorsToProtobuf.fromProtobuf;
+import static org.sonar.python.index.DescriptorsToProtobuf.toProtobufModuleDescriptor;
+
 @SonarLintSide(lifespan = "MODULE")
 public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileListener {
 
@@ -46,6 +59,7 @@ public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileL
   private boolean shouldBuildProjectSymbolTable = true;
   private static final long DEFAULT_MAX_LINES_FOR_INDEXING = 300_000;
   private static final String MAX_LINES_PROPERTY = "sonar.python.sonarlint.indexing.maxlines";
+  private static final String UPDATE_MAX_LINES_MESSAGE = "Update \"" + MAX_LINES_PROPERTY + "\" to set a different limit.";
 
   public SonarLintPythonIndexer(ModuleFileSystem moduleFileSystem) {
     this.moduleFileSystem = moduleFileSystem;
@@ -62,17 +76,105 @@ public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileL
     long nLines = files.stream().map(InputFile::lines).mapToLong(Integer::longValue).sum();
     long maxLinesForIndexing = context.config().getLong(MAX_LINES_PROPERTY).orElse(DEFAULT_MAX_LINES_FOR_INDEXING);
     if (nLines > maxLinesForIndexing) {
-      // Avoid performance issues for large projects
-      LOG.debug("Project symbol table deactivated due to project size (total number of lines is {}, maximum for indexing is {})", nLines, maxLinesForIndexing);
-      LOG.debug("Update \"sonar.python.sonarlint.indexing.maxlines\" to set a different limit.");
-      return;
+      // Avoid performance issues for large projects: only index as many files as the budget allows
+      files = filesWithinLinesBudget(files, maxLinesForIndexing);
+      if (files.isEmpty()) {
+        LOG.debug("Project symbol table deactivated due to project size (total number of lines is {}, maximum for indexing is {})", nLines, maxLinesForIndexing);
+        LOG.debug(UPDATE_MAX_LINES_MESSAGE);
+        return;
+      }
+      LOG.debug("Project symbol table restricted to {} files due to project size (total number of lines is {}, maximum for indexing is {})",
+        files.size(), nLines, maxLinesForIndexing);
+      LOG.debug(UPDATE_MAX_LINES_MESSAGE);
     }
     LOG.debug("Input files for indexing: " + files);
+    // Checks are not given the working directory in SonarLint (see PythonScanner#getWorkingDirectory), as they would write to it on
+    // every analysis. The store is a single file owned by this module-level component: it is replaced atomically, only written when
+    // the symbol table is built, and ignored when missing, unreadable or written by another version.
+    File workDir = context.fileSystem().workDir();
+    if (workDir == null) {
+      computeGlobalSymbols(files, context);
+      return;
+    }
+    SonarLintIndexStore store = new SonarLintIndexStore(workDir.toPath(), getCacheVersion(context));
+    Map<String, SonarLintIndexStore.Entry> storedEntries = store.load();
+    Map<String, SonarLintIndexStore.Entry> entries = new HashMap<>();
+    Map<InputFile, byte[]> contentHashes = new HashMap<>();
+    List<InputFile> filesToIndex = new ArrayList<>();
+    for (InputFile file : files) {
+      byte[] contentHash = contentHash(file);
+      SonarLintIndexStore.Entry storedEntry = storedEntries.get(file.key());
+      if (contentHash != null && storedEntry != null && MessageDigest.isEqual(contentHash, storedEntry.contentHash) && tryToReload(file, storedEntry)) {
+        entries.put(file.key(), storedEntry);
+      } else {
+        contentHashes.put(file, contentHash);
+        filesToIndex.add(file);
+      }
+    }
+    LOG.debug("Project symbol table entries reloaded from \"{}\" for {} out of {} files.", workDir, entries.size(), files.size());
+    computeGlobalSymbols(filesToIndex, context);
+    for (InputFile file : filesToIndex) {
+      byte[] contentHash = contentHashes.get(file);
+      Set<Descriptor> descriptors = projectLevelSymbolTable().descriptorsForModule(moduleFQN(file));
+      // Descriptors may be null if the file failed to parse
+      if (contentHash != null && descriptors != null) {
+        entries.put(file.key(), new SonarLintIndexStore.Entry(contentHash, toProtobufModuleDescriptor(descriptors).toByteArray()));
+      }
+    }
+    store.save(entries);
+  }
+
+  private void computeGlobalSymbols(List<InputFile> files, SensorContext context) {
     // computes "globalSymbolsByModuleName"
     GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context);
     globalSymbolsStep.execute(files, context);
   }
 
+  private boolean tryToReload(InputFile file, SonarLintIndexStore.Entry storedEntry) {
+    try {
+      Set<Descriptor> descriptors = fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(storedEntry.descriptors));
+      projectLevelSymbolTable().insertEntry(moduleFQN(file), descriptors);
+      indexedFiles.put(file.absolutePath(), file);
+      return true;
+    } catch (InvalidProtocolBufferException e) {
+      LOG.debug("Failed to deserialize project level symbol table entry for module: \"{}\"", file.key());
+      return false;
+    }
+  }
+
+  private String moduleFQN(InputFile file) {
+    return SymbolUtils.fullyQualifiedModuleName(packageName(file), file.filename());
+  }
+
+  @CheckForNull
+  private static byte[] contentHash(InputFile file) {
+    try {
+      return FileHashingUtils.inputFileContentHash(file);
+    } catch (IOException | NoSuchAlgorithmException e) {
+      LOG.debug("Failed to compute content hash for file {}", file.key());
+      return null;
+    }
+  }
+
+  /**
+   * Smallest files are indexed first: they are cheap to index and commonly imported (e.g. "__init__.py" or utility modules),
+   * so this keeps as many modules resolvable as possible within the budget.
+   */
+  private static List<InputFile> filesWithinLinesBudget(List<InputFile> files, long maxLines) {
+    List<InputFile> sortedFiles = new ArrayList<>(files);
+    sortedFiles.sort(Comparator.comparingInt(InputFile::lines).thenComparing(InputFile::uri));
+    List<InputFile> result = new ArrayList<>();
+    long indexedLines = 0;
+    for (InputFile file : sortedFiles) {
+      indexedLines += file.lines();
+      if (indexedLines > maxLines) {
+        break;
+      }
+      result.add(file);
+    }
+    return result;
+  }
+
   @Override
   public InputFile getFileWithId(String fileId) {
     String compare = fileId.replace("\\", "/");
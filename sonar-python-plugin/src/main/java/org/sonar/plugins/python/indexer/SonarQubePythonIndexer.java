@@ -30,19 +30,20 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.FileCacheRecord;
 import org.sonar.python.index.Descriptor;
 import org.sonar.python.semantic.DependencyGraph;
 import org.sonar.python.semantic.SymbolUtils;
 import org.sonar.python.types.TypeShed;
 import org.sonarsource.performance.measure.PerformanceMeasure;
 
-import static org.sonar.plugins.python.api.PythonVersionUtils.PYTHON_VERSION_KEY;
 
 public class SonarQubePythonIndexer extends PythonIndexer {
 
@@ -60,6 +61,8 @@ public class SonarQubePythonIndexer extends PythonIndexer {
   private final List<InputFile> mainFiles = new ArrayList<>();
   private final List<InputFile> testFiles = new ArrayList<>();
   private final Map<InputFile, String> inputFileToFQN = new HashMap<>();
+  // Imported modules of the main files whose global symbols are cached, by file key
+  private final Map<String, Set<String>> importsByFileKey = new HashMap<>();
 
   public SonarQubePythonIndexer(List<InputFile> inputFiles, CacheContext cacheContext, SensorContext context) {
     this.projectBaseDirAbsolutePath = context.fileSystem().baseDir().getAbsolutePath();
@@ -102,13 +105,14 @@ public class SonarQubePythonIndexer extends PythonIndexer {
     Set<String> deletedModulesFQNs = deletedModulesFQNs(currentProjectModulesFQNs);
     Set<String> allProjectFilesFQNs = Stream.concat(currentProjectModulesFQNs.stream(), deletedModulesFQNs.stream())
       .collect(Collectors.toSet());
+    Map<String, Set<String>> previousImportsByFileKey = caching.readImportGraph();
     Map<String, Set<String>> importsByModule = new HashMap<>();
     // Deleted files are considered impactful to their dependents but will not be re-analyzed.
     List<InputFile> impactfulFiles = new ArrayList<>();
     List<String> impactfulModulesFQNs = new ArrayList<>(deletedModulesFQNs);
     for (InputFile inputFile : mainFiles) {
       String currFQN = inputFileToFQN.get(inputFile);
-      boolean isUnimpacted = tryToUseCache(importsByModule, inputFile, currFQN);
+      boolean isUnimpacted = tryToUseCache(previousImportsByFileKey, importsByModule, inputFile, currFQN);
       if (!isUnimpacted) {
         // Failed to retrieve some data: consider the file as impactful.
         impactfulFiles.add(inputFile);
@@ -140,26 +144,29 @@ public class SonarQubePythonIndexer extends PythonIndexer {
   /*
     In a full analysis, Typeshed symbols are loaded lazily depending on which module is encountered during parsing.
     SonarSecurity needs all Typeshed symbols used in the project to be properly loaded.
-    For that reason, we load all symbols that were used in the previous analysis upfront, even if the file using them will not be parsed.
+    For that reason, symbols used in the previous analysis are registered to be loaded when stub symbols are first requested,
+    even if the file using them will not be parsed. Files that are parsed still load the modules they need on their own.
    */
   private void loadTypeshedSymbols() {
     TypeShed.builtinSymbols();
-    Set<String> typeShedModules = caching.readTypeshedModules();
-    typeShedModules.forEach(TypeShed::symbolsForModule);
+    TypeShed.loadModulesLazily(caching.readTypeshedModules());
   }
 
-  private boolean tryToUseCache(Map<String, Set<String>> importsByModule, InputFile inputFile, String currFQN) {
-    if (!fileIsUnchanged(inputFile)) {
+  private boolean tryToUseCache(Map<String, Set<String>> previousImportsByFileKey, Map<String, Set<String>> importsByModule, InputFile inputFile,
+    String currFQN) {
+    FileCacheRecord fileRecord = unchangedFileRecord(inputFile);
+    if (fileRecord == null) {
       return false;
     }
 
-    Set<String> imports = caching.readImportMapEntry(inputFile.key());
+    Set<String> imports = previousImportsByFileKey.get(inputFile.key());
     if (imports != null) {
       importsByModule.put(currFQN, imports);
     }
-    Set<Descriptor> descriptors = caching.readProjectLevelSymbolTableEntry(inputFile.key());
+    Set<Descriptor> descriptors = caching.readProjectLevelSymbolTableEntry(inputFile.key(), fileRecord);
     if (descriptors != null && imports != null) {
       saveRetrievedDescriptors(inputFile.key(), descriptors, caching);
+      importsByFileKey.put(inputFile.key(), imports);
       return true;
     }
 
@@ -167,19 +174,25 @@ public class SonarQubePythonIndexer extends PythonIndexer {
   }
 
   private boolean fileIsUnchanged(InputFile inputFile) {
+    return unchangedFileRecord(inputFile) != null;
+  }
+
+  /**
+   * @return the cache record of the file if its content did not change since the previous analysis, null otherwise.
+   */
+  @CheckForNull
+  private FileCacheRecord unchangedFileRecord(InputFile inputFile) {
     if (!inputFile.status().equals(InputFile.Status.SAME)) {
-      return false;
+      return null;
+    }
+    FileCacheRecord fileRecord = caching.readFileRecord(inputFile.key());
+    if (fileRecord == null) {
+      return null;
     }
-    byte[] fileHash = caching.readFileContentHash(inputFile.key());
     // InputFile.Status is not reliable in some cases
     // We use the hash of the file's content to double-check the content is the same.
-    try {
-      byte[] bytes = FileHashingUtils.inputFileContentHash(inputFile);
-      return MessageDigest.isEqual(fileHash, bytes);
-    } catch (IOException | NoSuchAlgorithmException e) {
-      LOG.debug("Failed to compute content hash for file {}", inputFile.key());
-      return false;
-    }
+    byte[] contentHash = contentHash(inputFile);
+    return contentHash != null && MessageDigest.isEqual(fileRecord.contentHash(), contentHash) ? fileRecord : null;
   }
 
   private void saveRetrievedDescriptors(String fileKey, Set<Descriptor> descriptors, Caching caching) {
@@ -192,6 +205,7 @@ public class SonarQubePythonIndexer extends PythonIndexer {
     globalSymbolsStep.execute(files, context);
     if (caching.isCacheEnabled()) {
       saveGlobalSymbolsInCache(files);
+      caching.writeImportGraph(importsByFileKey);
       saveMainFilesListInCache(new HashSet<>(inputFileToFQN.values()));
       Set<String> stubModules = TypeShed.stubModules();
       if (!stubModules.isEmpty()) {
@@ -209,25 +223,33 @@ public class SonarQubePythonIndexer extends PythonIndexer {
       if (descriptors != null && imports != null) {
         // Descriptors/imports map may be null if the file failed to parse.
         // We don't try to save information in the cache in that case.
-        if (!writeContentHashToCache(inputFile)) {
+        byte[] contentHash = contentHash(inputFile);
+        if (contentHash == null) {
           return;
         }
-        caching.writeProjectLevelSymbolTableEntry(inputFile.key(), descriptors);
-        caching.writeImportsMapEntry(inputFile.key(), imports);
+        caching.writeFileRecord(inputFile.key(), contentHash, descriptors);
+        importsByFileKey.put(inputFile.key(), imports);
       }
     }
   }
 
   private boolean writeContentHashToCache(InputFile inputFile) {
-    byte[] contentHash;
+    byte[] contentHash = contentHash(inputFile);
+    if (contentHash == null) {
+      return false;
+    }
+    caching.writeFileRecord(inputFile.key(), contentHash);
+    return true;
+  }
+
+  @CheckForNull
+  private static byte[] contentHash(InputFile inputFile) {
     try {
-      contentHash = FileHashingUtils.inputFileContentHash(inputFile);
+      return FileHashingUtils.inputFileContentHash(inputFile);
     } catch (IOException | NoSuchAlgorithmException e) {
       LOG.debug("Failed to compute content hash for file {}", inputFile.key());
-      return false;
+      return null;
     }
-    caching.writeFileContentHash(inputFile.key(), contentHash);
-    return true;
   }
 
   private Set<String> deletedModulesFQNs(Set<String> projectModulesFQNs) {
@@ -254,18 +276,4 @@ public class SonarQubePythonIndexer extends PythonIndexer {
   public CacheContext cacheContext() {
     return caching.cacheContext();
   }
-
-  private static String getCacheVersion(SensorContext context) {
-    String implementationVersion = getImplementationVersion(SonarQubePythonIndexer.class);
-    return context.config().get(PYTHON_VERSION_KEY).map(v -> implementationVersion + ";" + v).orElse(implementationVersion);
-  }
-
-  private static String getImplementationVersion(Class<?> cls) {
-    String implementationVersion = cls.getPackage().getImplementationVersion();
-    if (implementationVersion == null) {
-      LOG.warn("Implementation version of the Python plugin not found. Cached data may not be invalidated properly, which may lead to inaccurate analysis results.");
-      return "unknownPluginVersion";
-    }
-    return implementationVersion;
-  }
 }
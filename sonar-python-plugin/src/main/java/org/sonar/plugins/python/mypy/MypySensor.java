@@ -19,21 +19,22 @@
  */
 package org.sonar.plugins.python.mypy;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
 import java.util.Optional;
-import java.util.Scanner;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.sonar.api.batch.fs.FileSystem;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.ExternalIssuesSensor;
+import org.sonar.plugins.python.ReportLineUtils;
 import org.sonar.plugins.python.TextReportReader;
 
 public class MypySensor extends ExternalIssuesSensor {
@@ -53,28 +54,29 @@ public class MypySensor extends ExternalIssuesSensor {
 
   @Override
   protected void importReport(File reportPath, SensorContext context, Set<String> unresolvedInputFiles) throws IOException {
-    List<TextReportReader.Issue> issues = parse(reportPath, context.fileSystem());
-    issues.forEach(i -> saveIssue(context, i, unresolvedInputFiles, LINTER_KEY));
-  }
-
-  private static List<TextReportReader.Issue> parse(File report, FileSystem fileSystem) throws IOException {
-    List<TextReportReader.Issue> issues = new ArrayList<>();
-    try (Scanner scanner = new Scanner(report.toPath(), fileSystem.encoding().name())) {
-      while (scanner.hasNextLine()) {
-        TextReportReader.Issue issue = parseLine(scanner.nextLine());
+    try (BufferedReader reader = Files.newBufferedReader(reportPath.toPath(), context.fileSystem().encoding())) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        TextReportReader.Issue issue = parseLine(line);
         if (issue != null) {
-          issues.add(issue);
+          saveIssue(context, issue, unresolvedInputFiles, LINTER_KEY);
         }
       }
     }
-    return issues;
   }
 
-  private static TextReportReader.Issue parseLine(String line) {
+  @CheckForNull
+  static TextReportReader.Issue parseLine(String line) {
     if (line.length() > 0) {
-      Matcher m = PATTERN.matcher(line);
-      if (m.matches()) {
-        return extractIssue(m);
+      ReportLine reportLine = ReportLine.parse(line);
+      if (reportLine == null) {
+        Matcher m = PATTERN.matcher(line);
+        if (m.matches()) {
+          reportLine = new ReportLine(m.group("file"), m.group("startLine"), m.group("startCol"), m.group("severity"), m.group("message"), m.group("code"));
+        }
+      }
+      if (reportLine != null) {
+        return extractIssue(reportLine);
       }
       LOG.debug("Cannot parse the line: {}", line);
     }
@@ -82,27 +84,97 @@ public class MypySensor extends ExternalIssuesSensor {
     return null;
   }
 
-  private static TextReportReader.Issue extractIssue(Matcher m) {
-    String severity = m.group("severity");
-    if (!"error".equals(severity)) {
+  @CheckForNull
+  private static TextReportReader.Issue extractIssue(ReportLine reportLine) {
+    if (!"error".equals(reportLine.severity)) {
       return null;
     }
 
-    String filePath = m.group("file");
-    int lineNumber = Integer.parseInt(m.group("startLine"));
-    String message = m.group("message");
-    String errorCode = m.group("code");
+    String errorCode = reportLine.code;
     if (errorCode == null) {
       // Sometimes mypy does not report an error code, however the API expects a non-null error code.
       errorCode = FALLBACK_RULE_KEY;
     }
 
-    Integer columnNumber = Optional.ofNullable(m.group("startCol"))
+    Integer columnNumber = Optional.ofNullable(reportLine.startCol)
       .map(Integer::parseInt)
       .map(i -> i - 1)
       .orElse(null);
 
-    return new TextReportReader.Issue(filePath, errorCode, message, lineNumber, columnNumber);
+    return new TextReportReader.Issue(reportLine.file, errorCode, reportLine.message, Integer.parseInt(reportLine.startLine), columnNumber);
+  }
+
+  /**
+   * Groups of {@link #PATTERN} for a line of the report.
+   */
+  private static class ReportLine {
+    private final String file;
+    private final String startLine;
+    private final String startCol;
+    private final String severity;
+    private final String message;
+    private final String code;
+
+    private ReportLine(String file, String startLine, @Nullable String startCol, String severity, String message, @Nullable String code) {
+      this.file = file;
+      this.startLine = startLine;
+      this.startCol = startCol;
+      this.severity = severity;
+      this.message = message;
+      this.code = code;
+    }
+
+    /**
+     * Splits the line on its delimiters without regular expression. Returns null whenever the line is not in a canonical
+     * form, so that it gets parsed by {@link #PATTERN}: the result of this method is always the same as the one of the pattern.
+     */
+    @CheckForNull
+    private static ReportLine parse(String line) {
+      int fileEnd = line.indexOf(':');
+      if (fileEnd < 1 || ReportLineUtils.hasSpecialWhitespace(line)) {
+        return null;
+      }
+      // line, then optional column, then optional end line and end column
+      int[] numberBounds = new int[8];
+      int numbers = 0;
+      int index = fileEnd;
+      while (numbers < 4 && index < line.length() && line.charAt(index) == ':') {
+        int digitsEnd = ReportLineUtils.skipDigits(line, index + 1);
+        if (digitsEnd == index + 1) {
+          break;
+        }
+        numberBounds[2 * numbers] = index + 1;
+        numberBounds[2 * numbers + 1] = digitsEnd;
+        numbers++;
+        index = digitsEnd;
+      }
+      if (numbers == 0 || !line.startsWith(": ", index)) {
+        return null;
+      }
+      int severityStart = index + 2;
+      int severityEnd = line.indexOf(' ', severityStart) - 1;
+      if (severityEnd - severityStart < 2 || line.charAt(severityEnd) != ':' || line.charAt(severityEnd - 1) == ':' || line.startsWith(":", severityEnd + 2)) {
+        return null;
+      }
+      String startCol = (numbers == 2 || numbers == 4) ? line.substring(numberBounds[2], numberBounds[3]) : null;
+
+      int messageStart = severityEnd + 2;
+      int lastNonSpace = line.length() - 1;
+      while (lastNonSpace >= messageStart && line.charAt(lastNonSpace) == ' ') {
+        lastNonSpace--;
+      }
+      int messageEnd = lastNonSpace + 1;
+      String code = null;
+      if (lastNonSpace >= messageStart && line.charAt(lastNonSpace) == ']') {
+        int codeStart = line.indexOf(" [", messageStart);
+        if (codeStart >= 0) {
+          messageEnd = codeStart;
+          code = line.substring(codeStart + 2, lastNonSpace);
+        }
+      }
+      return new ReportLine(line.substring(0, fileEnd), line.substring(numberBounds[0], numberBounds[1]), startCol,
+        line.substring(severityStart, severityEnd), line.substring(messageStart, Math.max(messageStart, messageEnd)), code);
+    }
   }
 
   @Override
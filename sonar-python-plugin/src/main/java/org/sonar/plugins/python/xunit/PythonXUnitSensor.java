@@ -20,10 +20,10 @@
 package org.sonar.plugins.python.xunit;
 
 import java.io.File;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import javax.annotation.CheckForNull;
 import javax.xml.stream.XMLStreamException;
 import org.apache.commons.lang.StringUtils;
@@ -74,15 +74,12 @@ public class PythonXUnitSensor extends PythonReportSensor {
   }
 
   private static void simpleMode(final SensorContext context, List<File> reports) throws XMLStreamException {
-    TestSuiteParser parserHandler = new TestSuiteParser();
-    StaxParser parser = new StaxParser(parserHandler);
+    TestResult total = new TestResult();
+    StaxParser parser = new StaxParser(new TestSuiteParser((testSuiteKey, testCase) -> total.addTestCase(testCase)));
     for (File report : reports) {
       parser.parse(report);
     }
 
-    TestResult total = new TestResult();
-    parserHandler.getParsedReports().forEach(testSuite -> testSuite.getTestCases().forEach(total::addTestCase));
-
     if (total.getTests() > 0) {
       InputComponent module = context.module();
       saveMeasure(context, module, CoreMetrics.TESTS, total.getExecutedTests());
@@ -93,21 +90,36 @@ public class PythonXUnitSensor extends PythonReportSensor {
     }
   }
 
+  /**
+   * Test cases are attributed to their file as they are read, and only per-file counters are kept.
+   * Resources found for a file path or a test class name are cached for all the reports.
+   */
   private void detailedMode(final SensorContext context, List<File> reports) throws XMLStreamException {
+    Map<String, Optional<InputFile>> inputFilesByPath = new HashMap<>();
+    Map<String, Optional<InputFile>> inputFilesByTestKey = new HashMap<>();
     for (File report : reports) {
-      TestSuiteParser parserHandler = new TestSuiteParser();
-      StaxParser parser = new StaxParser(parserHandler);
-      parser.parse(report);
-
       LOG.info("Processing report '{}'", report);
 
-      processReportDetailed(context, parserHandler.getParsedReports());
+      Map<InputFile, TestResult> testResultsByFile = new HashMap<>();
+      StaxParser parser = new StaxParser(new TestSuiteParser((testSuiteKey, testCase) -> {
+        String testClassname = testCase.getTestClassname();
+        LOG.debug("Trying to find a SonarQube resource for test case '{}'", testClassname);
+        InputFile inputFile = findResource(testCase, testSuiteKey, inputFilesByPath, inputFilesByTestKey);
+        if (inputFile != null) {
+          LOG.debug("The resource was found '{}'", inputFile);
+          testResultsByFile.computeIfAbsent(inputFile, k -> new TestResult()).addTestCase(testCase);
+        } else {
+          LOG.warn("The resource for '{}' is not found, drilling down to the details of this test won't be possible", testClassname);
+        }
+      }));
+      parser.parse(report);
+
+      saveTestResults(context, testResultsByFile);
     }
   }
 
-  private void processReportDetailed(SensorContext context, Collection<TestSuite> parsedReports) {
-    Map<InputFile, TestResult> locatedResources = lookupResources(parsedReports);
-    for (Map.Entry<InputFile, TestResult> entry : locatedResources.entrySet()) {
+  private static void saveTestResults(SensorContext context, Map<InputFile, TestResult> testResultsByFile) {
+    for (Map.Entry<InputFile, TestResult> entry : testResultsByFile.entrySet()) {
       InputFile inputFile = entry.getKey();
       TestResult fileTestResult = entry.getValue();
       LOG.debug("Saving test execution measures for '{}'", inputFile.toString());
@@ -121,17 +133,19 @@ public class PythonXUnitSensor extends PythonReportSensor {
   }
 
   @CheckForNull
-  private InputFile findResource(TestCase testCase, String fileKey) {
+  private InputFile findResource(TestCase testCase, String testSuiteKey, Map<String, Optional<InputFile>> inputFilesByPath,
+    Map<String, Optional<InputFile>> inputFilesByTestKey) {
     InputFile unitTestFile = null;
 
-    if (testCase.getFile() != null) {
-      unitTestFile = getSonarTestFile(new File(testCase.getFile()));
+    String file = testCase.getFile();
+    if (file != null) {
+      unitTestFile = inputFilesByPath.computeIfAbsent(file, f -> Optional.ofNullable(getSonarTestFile(new File(f)))).orElse(null);
     }
 
     if (unitTestFile == null) {
       String testClassname = testCase.getTestClassname();
-      String key = testClassname != null ? testClassname : fileKey;
-      return findResourceUsingNoseTestsStrategy(key);
+      String key = testClassname != null ? testClassname : testSuiteKey;
+      return inputFilesByTestKey.computeIfAbsent(key, k -> Optional.ofNullable(findResourceUsingNoseTestsStrategy(k))).orElse(null);
     }
 
     return unitTestFile;
@@ -154,26 +168,6 @@ public class PythonXUnitSensor extends PythonReportSensor {
     return unitTestFile;
   }
 
-  private Map<InputFile, TestResult> lookupResources(Collection<TestSuite> testReports) {
-    Map<InputFile, TestResult> testResultsByFile = new HashMap<>();
-
-    for (TestSuite testSuite : testReports) {
-      testSuite.getTestCases().forEach(testCase -> {
-        String testClassname = testCase.getTestClassname();
-        LOG.debug("Trying to find a SonarQube resource for test case '{}'", testClassname);
-        InputFile inputFile = findResource(testCase, testSuite.getKey());
-        if (inputFile != null) {
-          LOG.debug("The resource was found '{}'", inputFile);
-          testResultsByFile.computeIfAbsent(inputFile, k -> new TestResult()).addTestCase(testCase);
-        } else {
-          LOG.warn("The resource for '{}' is not found, drilling down to the details of this test won't be possible", testClassname);
-        }
-      });
-    }
-
-    return testResultsByFile;
-  }
-
   @CheckForNull
   private InputFile getSonarTestFile(File file) {
     LOG.debug("Using the key '{}' to lookup the resource in SonarQube", file.getPath());
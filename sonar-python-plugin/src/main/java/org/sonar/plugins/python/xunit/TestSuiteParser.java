@@ -20,10 +20,8 @@
 package org.sonar.plugins.python.xunit;
 
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 import java.util.Locale;
+import java.util.function.BiConsumer;
 import javax.xml.stream.XMLStreamException;
 import org.codehaus.staxmate.in.ElementFilter;
 import org.codehaus.staxmate.in.SMHierarchicCursor;
@@ -31,32 +29,31 @@ import org.codehaus.staxmate.in.SMInputCursor;
 import org.sonar.api.utils.ParsingUtils;
 import org.sonar.plugins.python.parser.StaxParser.XmlStreamHandler;
 
+/**
+ * Streams the test cases of a report: each test case is passed to the consumer, together with the name of its test suite,
+ * as soon as it is read. Test cases are not retained, so that reports of any size can be processed in bounded memory.
+ */
 public class TestSuiteParser implements XmlStreamHandler {
 
-  private List<TestSuite> testSuites = new ArrayList<>();
+  private final BiConsumer<String, TestCase> testCaseConsumer;
+
+  public TestSuiteParser(BiConsumer<String, TestCase> testCaseConsumer) {
+    this.testCaseConsumer = testCaseConsumer;
+  }
 
   @Override
   public void stream(SMHierarchicCursor rootCursor) throws XMLStreamException {
     SMInputCursor testSuiteCursor = rootCursor.constructDescendantCursor(new ElementFilter("testsuite"));
     while (testSuiteCursor.getNext() != null) {
       String testSuiteClassName = getExpectedAttribute(testSuiteCursor, "name");
-      TestSuite testSuite = new TestSuite(testSuiteClassName);
-      testSuites.add(testSuite);
       SMInputCursor testCaseCursor = testSuiteCursor.childElementCursor("testcase");
 
       while (testCaseCursor.getNext() != null) {
-        testSuite.addTestCase(parseTestCaseTag(testCaseCursor));
+        testCaseConsumer.accept(testSuiteClassName, parseTestCaseTag(testCaseCursor));
       }
     }
   }
 
-  /**
-   * Returns successfully parsed reports as a collection of TestSuite objects.
-   */
-  public Collection<TestSuite> getParsedReports() {
-    return testSuites;
-  }
-
   private static TestCase parseTestCaseTag(SMInputCursor testCaseCursor) throws XMLStreamException {
     String name = parseTestCaseName(testCaseCursor);
     Double time = parseTime(testCaseCursor);
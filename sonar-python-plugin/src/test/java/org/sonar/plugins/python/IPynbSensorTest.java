@@ -20,13 +20,11 @@
 package org.sonar.plugins.python;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.InputFile;
@@ -74,6 +72,9 @@ public class IPynbSensorTest {
   @org.junit.Rule
   public LogTester logTester = new LogTester();
 
+  @org.junit.Rule
+  public TemporaryFolder workDir = new TemporaryFolder();
+
   @Before
   public void init() {
     context = SensorContextTester.create(baseDir);
@@ -93,6 +94,7 @@ public class IPynbSensorTest {
   @Test
   public void test_execute_on_sonarlint() {
     context.setRuntime(SONARLINT_RUNTIME);
+    context.fileSystem().setWorkDir(workDir.getRoot().toPath());
 
     activeRules = new ActiveRulesBuilder()
       .addRule(new NewActiveRule.Builder()
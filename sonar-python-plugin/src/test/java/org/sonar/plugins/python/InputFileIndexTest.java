@@ -0,0 +1,62 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class InputFileIndexTest {
+
+  private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/sensor").getAbsoluteFile();
+
+  @Test
+  public void resolve_paths() {
+    DefaultFileSystem fileSystem = spy(new DefaultFileSystem(baseDir));
+    InputFile file1 = TestInputFileBuilder.create("moduleKey", "file1.py").setModuleBaseDir(baseDir.toPath()).build();
+    InputFile file2 = TestInputFileBuilder.create("moduleKey", "packages/sound/file2.py").setModuleBaseDir(baseDir.toPath()).build();
+    fileSystem.add(file1);
+    fileSystem.add(file2);
+
+    InputFileIndex index = new InputFileIndex(fileSystem);
+    assertThat(index.inputFile("file1.py")).isEqualTo(file1);
+    assertThat(index.inputFile("./file1.py")).isEqualTo(file1);
+    assertThat(index.inputFile(new File(baseDir, "file1.py").getAbsolutePath())).isEqualTo(file1);
+    assertThat(index.inputFile("packages/sound/file2.py")).isEqualTo(file2);
+    assertThat(index.inputFile("packages\\sound\\file2.py")).isEqualTo(file2);
+    assertThat(index.inputFile("packages/sound/../sound/file2.py")).isEqualTo(file2);
+    assertThat(index.inputFile(new File(baseDir, "file1.py").toPath())).isEqualTo(file1);
+
+    assertThat(index.inputFile("unknown.py")).isNull();
+    assertThat(index.inputFile("unknown.py")).isNull();
+    assertThat(index.inputFile("invalid\u0000path.py")).isNull();
+
+    // input files are only listed once
+    verify(fileSystem, times(1)).inputFiles(any());
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.api.PythonCheck;
+import org.sonar.plugins.python.api.PythonCustomRuleRepository;
+import org.sonar.python.checks.CheckList;
+import org.sonar.python.checks.CollapsibleIfStatementsCheck;
+import org.sonar.python.checks.PrintStatementUsageCheck;
+import org.sonar.python.checks.tests.NotDiscoverableTestMethodCheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PythonChecksTest {
+
+  private static final String CUSTOM_REPOSITORY_KEY = "customKey";
+
+  @Test
+  public void partitions() {
+    ActiveRules activeRules = new ActiveRulesBuilder()
+      .addRule(activeRule(CheckList.REPOSITORY_KEY, "PrintStatementUsage"))
+      .addRule(activeRule(CheckList.REPOSITORY_KEY, "S1066"))
+      .addRule(activeRule(CheckList.REPOSITORY_KEY, "S5899"))
+      .addRule(activeRule(CUSTOM_REPOSITORY_KEY, "S1066"))
+      .build();
+    PythonChecks checks = new PythonChecks(new CheckFactory(activeRules))
+      .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
+      .addCustomChecks(new PythonCustomRuleRepository[] {new PythonCustomRuleRepository() {
+        @Override
+        public String repositoryKey() {
+          return CUSTOM_REPOSITORY_KEY;
+        }
+
+        @Override
+        public List<Class> checkClasses() {
+          return List.of(CollapsibleIfStatementsCheck.class);
+        }
+      }});
+
+    assertThat(checks.all()).hasSize(4);
+    assertThat(checks.applicableChecks(InputFile.Type.MAIN)).hasSize(4);
+    assertThat(checks.applicableChecks(InputFile.Type.TEST)).hasSize(1);
+    assertThat(checks.subscriptionChecks(InputFile.Type.MAIN))
+      .hasSize(2)
+      .hasAtLeastOneElementOfType(PrintStatementUsageCheck.class)
+      .hasAtLeastOneElementOfType(NotDiscoverableTestMethodCheck.class);
+    assertThat(checks.subscriptionChecks(InputFile.Type.TEST)).hasOnlyElementsOfType(NotDiscoverableTestMethodCheck.class);
+    assertThat(checks.visitorChecks(InputFile.Type.MAIN)).hasSize(2).hasOnlyElementsOfType(CollapsibleIfStatementsCheck.class);
+    assertThat(checks.visitorChecks(InputFile.Type.TEST)).isEmpty();
+    assertThat(checks.endOfAnalysisChecks()).isEmpty();
+
+    List<PythonCheck> collapsibleIfChecks = checks.visitorChecks(InputFile.Type.MAIN);
+    assertThat(checks.ruleKey(collapsibleIfChecks.get(0))).isEqualTo(RuleKey.of(CheckList.REPOSITORY_KEY, "S1066"));
+    assertThat(checks.ruleKey(collapsibleIfChecks.get(1))).isEqualTo(RuleKey.of(CUSTOM_REPOSITORY_KEY, "S1066"));
+    assertThat(checks.ruleKey(new PrintStatementUsageCheck())).isNull();
+  }
+
+  private static NewActiveRule activeRule(String repositoryKey, String ruleKey) {
+    return new NewActiveRule.Builder().setRuleKey(RuleKey.of(repositoryKey, ruleKey)).build();
+  }
+}
@@ -55,6 +55,7 @@ import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.cpd.internal.TokensLine;
 import org.sonar.api.batch.sensor.error.AnalysisError;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.batch.sensor.issue.Issue;
@@ -75,16 +76,21 @@ import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
+import org.sonar.plugins.python.api.LocationInFile;
 import org.sonar.plugins.python.api.ProjectPythonVersion;
 import org.sonar.plugins.python.api.PythonCheck;
 import org.sonar.plugins.python.api.PythonCustomRuleRepository;
 import org.sonar.plugins.python.api.PythonInputFileContext;
+import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVersionUtils;
 import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.internal.EndOfAnalysis;
 import org.sonar.plugins.python.api.tree.Token;
+import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.IssuesCacheRecord;
+import org.sonar.plugins.python.caching.MeasuresCacheRecord;
 import org.sonar.plugins.python.caching.TestReadCache;
 import org.sonar.plugins.python.caching.TestWriteCache;
 import org.sonar.plugins.python.indexer.FileHashingUtils;
@@ -95,6 +101,7 @@ import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.checks.CheckList;
+import org.sonar.python.checks.OneStatementPerLineCheck;
 import org.sonar.python.index.VariableDescriptor;
 import org.sonar.python.tree.TokenImpl;
 import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
@@ -114,12 +121,6 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.plugins.python.caching.Caching.CACHE_VERSION_KEY;
 import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_STRING_TABLE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.IMPORTS_MAP_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.fileContentHashCacheKey;
-import static org.sonar.plugins.python.caching.Caching.importsMapCacheKey;
-import static org.sonar.plugins.python.caching.Caching.projectSymbolTableCacheKey;
 import static org.sonar.plugins.python.indexer.FileHashingUtils.inputFileContentHash;
 import static org.sonar.python.index.DescriptorsToProtobuf.toProtobufModuleDescriptor;
 
@@ -134,6 +135,7 @@ public class PythonSensorTest {
   private static final String CUSTOM_REPOSITORY_KEY = "customKey";
   private static final String CUSTOM_RULE_KEY = "key";
   private static final String RULE_CRASHING_ON_SCAN_KEY = "key2";
+  private static final String RULE_WITH_CROSS_FILE_LOCATIONS_KEY = "key4";
 
   private static final Version SONARLINT_DETECTABLE_VERSION = Version.create(6, 0);
 
@@ -147,7 +149,7 @@ public class PythonSensorTest {
 
     @Override
     public List<Class> checkClasses() {
-      return List.of(MyCustomRule.class, RuleCrashingOnRegularScan.class);
+      return List.of(MyCustomRule.class, RuleCrashingOnRegularScan.class, RuleWithCrossFileLocations.class);
     }
   }};
   private static Path workDir;
@@ -201,6 +203,30 @@ public class PythonSensorTest {
     }
   }
 
+  @Rule(
+    key = RULE_WITH_CROSS_FILE_LOCATIONS_KEY,
+    name = "rule_with_cross_file_locations",
+    description = "desc",
+    tags = {"bug"})
+  public static class RuleWithCrossFileLocations extends PythonSubscriptionCheck {
+
+    private static final String MOD_FILE_ID = new File("src/test/resources/org/sonar/plugins/python/sensor/mod.py").getAbsolutePath();
+
+    @Override
+    public void initialize(Context context) {
+      context.registerSyntaxNodeConsumer(Tree.Kind.FILE_INPUT, ctx -> {
+        if (!"main.py".equals(ctx.pythonFile().fileName())) {
+          return;
+        }
+        for (int i = 0; i < 2; i++) {
+          ctx.addFileIssue("Cross-file locations")
+            .secondary(new LocationInFile(MOD_FILE_ID, 1, 0, 1, 3), "in mod")
+            .secondary(new LocationInFile("unknown.py", 1, 0, 1, 3), "in unknown file");
+        }
+      });
+    }
+  }
+
   private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/sensor").getAbsoluteFile();
 
   private SensorContextTester context;
@@ -415,6 +441,28 @@ public class PythonSensorTest {
     assertThat(flow.locations().get(1).inputComponent()).isEqualTo(modFile);
   }
 
+  @Test
+  public void repeated_cross_files_secondary_locations() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CUSTOM_REPOSITORY_KEY, RULE_WITH_CROSS_FILE_LOCATIONS_KEY))
+        .build())
+      .build();
+
+    InputFile mainFile = inputFile("main.py");
+    InputFile modFile = inputFile("mod.py");
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(2);
+    for (Issue issue : context.allIssues()) {
+      assertThat(issue.flows()).hasSize(1);
+      Issue.Flow flow = issue.flows().get(0);
+      assertThat(flow.locations()).extracting(IssueLocation::inputComponent).containsExactly(mainFile, modFile);
+    }
+    // The lookup of an unknown file is only attempted and logged once
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce("Failed to find InputFile for unknown.py");
+  }
+
   @Test
   public void no_cross_file_issues_only_one_file() {
     activeRules = new ActiveRulesBuilder()
@@ -735,12 +783,10 @@ public class PythonSensorTest {
     writeCache.bind(readCache);
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(Collections.emptyList());
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data);
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
-    readCache.put(fileContentHashCacheKey(inputFile.key()), FileHashingUtils.inputFileContentHash(inputFile));
+    byte[] cpdTokens = CpdSerializer.serialize(Collections.emptyList());
+    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
+    readCache.put(Caching.measuresCacheKey(inputFile.key()), new MeasuresCacheRecord().toBytes());
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -765,7 +811,7 @@ public class PythonSensorTest {
 
     InputFile inputFile = inputFile(FILE_TEST_FILE, Type.TEST, InputFile.Status.SAME);
     TestReadCache readCache = getValidReadCache();
-    readCache.put(fileContentHashCacheKey(inputFile.key()), inputFileContentHash(inputFile));
+    readCache.putFileRecord(inputFile.key(), inputFileContentHash(inputFile));
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
@@ -795,9 +841,7 @@ public class PythonSensorTest {
     writeCache.bind(readCache);
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.key()), FileHashingUtils.inputFileContentHash(inputFile));
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -827,9 +871,7 @@ public class PythonSensorTest {
     writeCache.bind(readCache);
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile2.key()), String.join(";", List.of("file1.py")).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile2.key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile2.key()), FileHashingUtils.inputFileContentHash(inputFile2));
+    readCache.putFileRecord(inputFile2.key(), FileHashingUtils.inputFileContentHash(inputFile2), Set.of("file1.py"), serializedSymbolTable);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -842,7 +884,7 @@ public class PythonSensorTest {
   }
 
   @Test
-  public void cache_not_enabled_for_older_api_version() {
+  public void cache_not_enabled_for_older_api_version() throws IOException {
     SensorContextTester contextMock = spy(context);
     SonarRuntime runtime = mock(SonarRuntime.class);
     when(contextMock.runtime()).thenReturn(runtime);
@@ -862,8 +904,7 @@ public class PythonSensorTest {
     context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(IMPORTS_MAP_CACHE_KEY_PREFIX + "file2", String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "file2", serializedSymbolTable);
+    readCache.putFileRecord("file2", new byte[0], Collections.emptySet(), serializedSymbolTable);
     sensor().execute(contextMock);
 
     assertThat(context.allIssues()).hasSize(1);
@@ -889,13 +930,12 @@ public class PythonSensorTest {
     sensor().execute(context);
 
     assertThat(writeCache.getData().keySet()).containsExactlyInAnyOrder(
-      "python:cache_version", "python:files", "python:descriptors:moduleKey:pass.py", "python:imports:moduleKey:pass.py",
-      "python:cpd:data:moduleKey:pass.py", "python:cpd:stringTable:moduleKey:pass.py", "python:content_hashes:moduleKey:pass.py");
+      "python:cache_version", "python:files", "python:import_graph", "python:file:moduleKey:pass.py", "python:cpd:moduleKey:pass.py",
+      "python:measures:moduleKey:pass.py");
 
-    byte[] tokenData = writeCache.getData().get("python:cpd:data:moduleKey:pass.py");
-    byte[] stringTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:pass.py");
+    byte[] tokenData = writeCache.getData().get("python:cpd:moduleKey:pass.py");
 
-    List<CpdSerializer.TokenInfo> actualTokens = CpdSerializer.deserialize(tokenData, stringTable);
+    List<CpdSerializer.TokenInfo> actualTokens = CpdSerializer.deserialize(tokenData);
     assertThat(actualTokens)
       .hasSize(1);
 
@@ -926,7 +966,7 @@ public class PythonSensorTest {
     sensor().execute(context);
 
     assertThat(logTester.logs(LoggerLevel.WARN))
-      .contains("Could not write CPD tokens to cache (IllegalArgumentException: Same key cannot be written to multiple times (python:cpd:data:moduleKey:pass.py))");
+      .contains("Could not write CPD tokens to cache (IllegalArgumentException: Same key cannot be written to multiple times (python:cpd:moduleKey:pass.py))");
   }
 
   @Test
@@ -949,15 +989,13 @@ public class PythonSensorTest {
     context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
     sensor().execute(context);
 
-    byte[] mainTokensData = writeCache.getData().get("python:cpd:data:moduleKey:main.py");
-    byte[] mainTokensTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:main.py");
-    List<CpdSerializer.TokenInfo> actualTokensForMain = CpdSerializer.deserialize(mainTokensData, mainTokensTable);
+    byte[] mainTokensData = writeCache.getData().get("python:cpd:moduleKey:main.py");
+    List<CpdSerializer.TokenInfo> actualTokensForMain = CpdSerializer.deserialize(mainTokensData);
     assertThat(actualTokensForMain)
       .hasSize(14);
 
-    byte[] passTokensData = writeCache.getData().get("python:cpd:data:moduleKey:pass.py");
-    byte[] passTokensTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:pass.py");
-    List<CpdSerializer.TokenInfo> actualTokensForPass = CpdSerializer.deserialize(passTokensData, passTokensTable);
+    byte[] passTokensData = writeCache.getData().get("python:cpd:moduleKey:pass.py");
+    List<CpdSerializer.TokenInfo> actualTokensForPass = CpdSerializer.deserialize(passTokensData);
     assertThat(actualTokensForPass)
       .hasSize(1);
   }
@@ -975,13 +1013,11 @@ public class PythonSensorTest {
     List<Token> tokens = List.of(new TokenImpl(sslrToken));
 
     TestReadCache readCache = getValidReadCache();
-    CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(tokens);
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data);
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
+    byte[] cpdTokens = CpdSerializer.serialize(tokens);
+    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
+    readCache.put(Caching.measuresCacheKey(inputFile.key()), new MeasuresCacheRecord().toBytes());
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.key()), FileHashingUtils.inputFileContentHash(inputFile));
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1003,8 +1039,7 @@ public class PythonSensorTest {
 
     // Verify that we carried the tokens over to the next cache
     assertThat(writeCache.getData())
-      .containsEntry(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
+      .containsEntry(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
   }
 
   @Test
@@ -1018,9 +1053,6 @@ public class PythonSensorTest {
     InputFile inputFile = inputFile("pass.py", Type.MAIN, InputFile.Status.SAME);
 
     TestReadCache readCache = getValidReadCache();
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1042,11 +1074,10 @@ public class PythonSensorTest {
 
     // Verify that we carried the tokens over to the next cache
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.uri())));
-    CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
+    byte[] cpdTokens = CpdSerializer.serialize(expectedTokens);
 
     assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
+      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
   }
 
   @Test
@@ -1064,12 +1095,10 @@ public class PythonSensorTest {
     TestReadCache readCache = getValidReadCache();
 
     readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), "not valid data".getBytes(UTF_8));
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), "not valid string table".getBytes(UTF_8));
+    readCache.put(Caching.measuresCacheKey(inputFile.key()), new MeasuresCacheRecord().toBytes());
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.key()), FileHashingUtils.inputFileContentHash(inputFile));
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1094,11 +1123,10 @@ public class PythonSensorTest {
 
     // Verify that we carried the tokens over to the next cache
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.uri())));
-    CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
+    byte[] cpdTokens = CpdSerializer.serialize(expectedTokens);
 
     assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
+      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
   }
 
   @Test
@@ -1140,9 +1168,7 @@ public class PythonSensorTest {
 
     TestReadCache readCache = getValidReadCache();
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.key()), FileHashingUtils.inputFileContentHash(inputFile));
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1168,11 +1194,262 @@ public class PythonSensorTest {
 
     // Verify that we carried the tokens over to the next cache
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.uri())));
-    CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
+    byte[] cpdTokens = CpdSerializer.serialize(expectedTokens);
 
     assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.key(), cpdTokens.stringTable);
+      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), cpdTokens);
+  }
+
+  @Test
+  public void write_issues_to_cache() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setActiveRules(activeRules);
+
+    InputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty(PythonScanner.SONAR_REPLAY_UNCHANGED_ISSUES_KEY, true));
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    IssuesCacheRecord cachedIssues = IssuesCacheRecord.fromBytes(writeCache.getData().get(Caching.issuesCacheKey(inputFile.key())));
+    assertThat(cachedIssues.rulesFingerprint()).isEqualTo(IssuesCacheRecord.rulesFingerprint(activeRules));
+    assertThat(cachedIssues.issues()).hasSize(1);
+    IssuesCacheRecord.CachedIssue cachedIssue = cachedIssues.issues().get(0);
+    assertThat(cachedIssue.ruleKey()).isEqualTo(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY));
+    assertThat(cachedIssue.primaryLocation().startLine()).isEqualTo(1);
+  }
+
+  @Test
+  public void issues_of_built_in_checks_registered_in_other_repositories_not_cached() throws IOException {
+    String otherRepositoryKey = "otherRepository";
+    PythonCustomRuleRepository[] otherRepository = {new PythonCustomRuleRepository() {
+      @Override
+      public String repositoryKey() {
+        return otherRepositoryKey;
+      }
+
+      @Override
+      public List<Class> checkClasses() {
+        return List.of(OneStatementPerLineCheck.class);
+      }
+    }};
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(otherRepositoryKey, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setActiveRules(activeRules);
+
+    InputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty(PythonScanner.SONAR_REPLAY_UNCHANGED_ISSUES_KEY, true));
+    sensor(otherRepository, null, analysisWarning).execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    IssuesCacheRecord cachedIssues = IssuesCacheRecord.fromBytes(writeCache.getData().get(Caching.issuesCacheKey(inputFile.key())));
+    assertThat(cachedIssues.issues()).isEmpty();
+  }
+
+  @Test
+  public void replay_cached_issues() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setActiveRules(activeRules);
+
+    InputFile inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    TestReadCache readCache = unchangedFileReadCache(inputFile);
+    IssuesCacheRecord.CachedIssue cachedIssue = new IssuesCacheRecord.CachedIssue(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY), null,
+      org.sonar.plugins.python.api.IssueLocation.preciseLocation(new LocationInFile(null, 1, 0, 1, 5), "Cached message"), Collections.emptyList());
+    byte[] cachedIssues = new IssuesCacheRecord(IssuesCacheRecord.rulesFingerprint(activeRules), List.of(cachedIssue)).toBytes();
+    readCache.put(Caching.issuesCacheKey(inputFile.key()), cachedIssues);
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.python.skipUnchanged", true)
+      .setProperty(PythonScanner.SONAR_REPLAY_UNCHANGED_ISSUES_KEY, true));
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).extracting(issue -> issue.primaryLocation().message()).containsExactly("Cached message");
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 1 out of 1 files. These files were not parsed.");
+    assertThat(writeCache.getData()).containsEntry(Caching.issuesCacheKey(inputFile.key()), cachedIssues);
+  }
+
+  @Test
+  public void cached_issues_replayed_when_rules_of_other_repositories_changed() throws IOException, NoSuchAlgorithmException {
+    NewActiveRule pythonRule = new NewActiveRule.Builder()
+      .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+      .build();
+    ActiveRules previousActiveRules = new ActiveRulesBuilder().addRule(pythonRule).build();
+    activeRules = new ActiveRulesBuilder()
+      .addRule(pythonRule)
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of("other-repository", "OtherRule"))
+        .build())
+      .build();
+    context.setActiveRules(activeRules);
+    assertThat(IssuesCacheRecord.rulesFingerprint(activeRules)).isEqualTo(IssuesCacheRecord.rulesFingerprint(previousActiveRules));
+
+    InputFile inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    TestReadCache readCache = unchangedFileReadCache(inputFile);
+    IssuesCacheRecord.CachedIssue cachedIssue = new IssuesCacheRecord.CachedIssue(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY), null,
+      org.sonar.plugins.python.api.IssueLocation.preciseLocation(new LocationInFile(null, 1, 0, 1, 5), "Cached message"), Collections.emptyList());
+    byte[] cachedIssues = new IssuesCacheRecord(IssuesCacheRecord.rulesFingerprint(previousActiveRules), List.of(cachedIssue)).toBytes();
+    readCache.put(Caching.issuesCacheKey(inputFile.key()), cachedIssues);
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.python.skipUnchanged", true)
+      .setProperty(PythonScanner.SONAR_REPLAY_UNCHANGED_ISSUES_KEY, true));
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).extracting(issue -> issue.primaryLocation().message()).containsExactly("Cached message");
+  }
+
+  @Test
+  public void cached_issues_not_replayed_when_active_rules_changed() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setActiveRules(activeRules);
+
+    InputFile inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    TestReadCache readCache = unchangedFileReadCache(inputFile);
+    byte[] cachedIssues = new IssuesCacheRecord(IssuesCacheRecord.rulesFingerprint(new ActiveRulesBuilder().build()), Collections.emptyList()).toBytes();
+    readCache.put(Caching.issuesCacheKey(inputFile.key()), cachedIssues);
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.python.skipUnchanged", true)
+      .setProperty(PythonScanner.SONAR_REPLAY_UNCHANGED_ISSUES_KEY, true));
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 0 out of 1 files. These files were not parsed.");
+  }
+
+  @Test
+  public void replay_cached_measures() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder().build();
+    String key = "moduleKey:file2.py";
+
+    InputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    sensor().execute(context);
+
+    assertThat(writeCache.getData()).containsKey(Caching.measuresCacheKey(inputFile.key()));
+    Integer ncloc = context.measure(key, CoreMetrics.NCLOC).value();
+    Integer complexity = context.measure(key, CoreMetrics.COMPLEXITY).value();
+    List<TypeOfText> highlighting = context.highlightingTypeAt(key, 1, 15);
+    Collection<TextRange> references = context.referencesForSymbolAt(key, 3, 4);
+    assertThat(highlighting).containsExactly(TypeOfText.COMMENT);
+    assertThat(references).hasSize(3);
+
+    init();
+    inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    TestReadCache nextReadCache = getValidReadCache().putAll(writeCache);
+    TestWriteCache nextWriteCache = new TestWriteCache();
+    nextWriteCache.bind(nextReadCache);
+    context.setPreviousCache(nextReadCache);
+    context.setNextCache(nextWriteCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
+    sensor().execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 1 out of 1 files. These files were not parsed.");
+    assertThat(context.measure(key, CoreMetrics.NCLOC).value()).isEqualTo(ncloc);
+    assertThat(context.measure(key, CoreMetrics.COMPLEXITY).value()).isEqualTo(complexity);
+    assertThat(context.highlightingTypeAt(key, 1, 15)).isEqualTo(highlighting);
+    assertThat(context.referencesForSymbolAt(key, 3, 4)).isEqualTo(references);
+    assertThat(nextWriteCache.getData()).containsKey(Caching.measuresCacheKey(inputFile.key()));
+  }
+
+  @Test
+  public void unchanged_file_parsed_when_measures_not_cached() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder().build();
+    InputFile inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    // Unchanged file whose CPD tokens are cached, but not its measures
+    TestReadCache readCache = getValidReadCache();
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(),
+      toProtobufModuleDescriptor(Collections.emptySet()).toByteArray());
+    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), CpdSerializer.serialize(Collections.emptyList()));
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
+    sensor().execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 0 out of 1 files. These files were not parsed.");
+    assertThat(context.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(writeCache.getData()).containsKey(Caching.measuresCacheKey(inputFile.key()));
+  }
+
+  @Test
+  public void unchanged_file_parsed_when_cached_measures_corrupted() throws IOException, NoSuchAlgorithmException {
+    activeRules = new ActiveRulesBuilder().build();
+    InputFile inputFile = inputFile(FILE_2, Type.MAIN, InputFile.Status.SAME);
+    TestReadCache readCache = unchangedFileReadCache(inputFile);
+    readCache.put(Caching.measuresCacheKey(inputFile.key()), "not valid data".getBytes(UTF_8));
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
+    sensor().execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize measures for file: \"" + inputFile.key() + "\"");
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 0 out of 1 files. These files were not parsed.");
+    assertThat(context.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(writeCache.getData()).containsKey(Caching.measuresCacheKey(inputFile.key()));
+  }
+
+  private TestReadCache unchangedFileReadCache(InputFile inputFile) throws IOException, NoSuchAlgorithmException {
+    TestReadCache readCache = getValidReadCache();
+    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
+    readCache.putFileRecord(inputFile.key(), FileHashingUtils.inputFileContentHash(inputFile), Collections.emptySet(), serializedSymbolTable);
+    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.key(), CpdSerializer.serialize(Collections.emptyList()));
+    readCache.put(Caching.measuresCacheKey(inputFile.key()), new MeasuresCacheRecord().toBytes());
+    return readCache;
   }
 
   private com.sonar.sslr.api.Token passToken(URI uri) {
@@ -0,0 +1,148 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.sonar.plugins.python.TextReportReader.Issue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TextReportReaderTest {
+
+  private static final Pattern DEFAULT_PATTERN = Pattern.compile("(.+):(\\d+):(\\d+): (\\S+[^:]):? (.*)");
+  private static final Pattern LEGACY_PATTERN = Pattern.compile("(.+):(\\d+): \\[(.*)\\] (.*)");
+
+  private static final List<String> LINES = Arrays.asList(
+    "src/file1.py:1:0: C0111: Missing module docstring (missing-docstring)",
+    "src/file1.py:3:4: W0612 Unused variable 'x'",
+    "C:\\project\\src\\file1.py:12:5: E501 line too long (88 > 79 characters)",
+    "src/file1.py:12:5: E501 message with another location file2.py:3:4: E1 x",
+    "src/file1.py:12:5: E501:: double colon",
+    "src/file1.py:12:5: E:501 colon in rule",
+    "src/file1.py:12:5: E  two spaces",
+    "src/file1.py:12:5: E501  two spaces",
+    "src/file1.py:12:5: E501: : colon message",
+    "src/file1.py:12:5: E501 : colon message",
+    "src/file1.py:12:5: E501:",
+    "src/file1.py:12:5: E501",
+    "src/file1.py:12:5: E501 ",
+    "src/file1.py:12:5: : x",
+    "src/file1.py:12:5:  x y",
+    "src/file1.py:12:5: E501\tmessage",
+    "src/file1.py:12:5: E501 message\u2028other",
+    "src/file1.py:12: [E0602(undefined-variable), foo] Undefined variable 'bar'",
+    "src/file1.py:1:2:3: E1 x",
+    "src/file1.py:1:2: 3:4: x y",
+    ":1:2: E1 x",
+    "a:1:2: E1 x",
+    "src/file1.py:a:2: E1 x",
+    "src/file1.py:1:: E1 x",
+    "not an issue");
+
+  private static final List<String> COMMON_LINES = Arrays.asList(
+    "src/file1.py:1:0: C0111: Missing module docstring (missing-docstring)",
+    "src/file1.py:3:4: W0612 Unused variable 'x'",
+    "src/file1.py:3:4: E0602: Undefined variable 'bar' (undefined-variable)",
+    "C:\\project\\src\\file1.py:12:5: E501 line too long (88 > 79 characters)");
+
+  @Test
+  public void hand_written_parser_is_consistent_with_patterns() {
+    List<String> lines = new ArrayList<>(LINES);
+    lines.addAll(randomLines());
+    for (int columnStartIndex : new int[] {TextReportReader.COLUMN_ZERO_BASED, TextReportReader.COLUMN_ONE_BASED}) {
+      TextReportReader reader = new TextReportReader(columnStartIndex);
+      for (String line : lines) {
+        Issue expected = parseWithPatterns(line, columnStartIndex);
+        assertSameIssue(line, reader.parseLine(line), expected);
+        Issue handWritten = reader.parseDefaultStyleLine(line);
+        if (handWritten != null) {
+          // when the hand-written parser accepts a line, it must find the same issue as the default pattern
+          assertSameIssue(line, handWritten, expected);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void common_lines_are_parsed_without_patterns() {
+    TextReportReader reader = new TextReportReader(TextReportReader.COLUMN_ONE_BASED);
+    for (String line : COMMON_LINES) {
+      assertSameIssue(line, reader.parseDefaultStyleLine(line), parseWithPatterns(line, TextReportReader.COLUMN_ONE_BASED));
+    }
+  }
+
+  @Test
+  public void empty_line() {
+    assertThat(new TextReportReader(TextReportReader.COLUMN_ZERO_BASED).parseLine("")).isNull();
+  }
+
+  private static List<String> randomLines() {
+    String[] fragments = {"a", "b.py", ":", "1", "42", " ", "  ", "E501", "[", "]", "(", ")", "\t", "x y"};
+    Random random = new Random(42);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder line = new StringBuilder(i % 2 == 0 ? "file.py:12:3: " : "");
+      int length = random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        line.append(fragments[random.nextInt(fragments.length)]);
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  private static void assertSameIssue(String line, @Nullable Issue actual, @Nullable Issue expected) {
+    if (expected == null) {
+      assertThat(actual).as(line).isNull();
+      return;
+    }
+    assertThat(actual).as(line).isNotNull();
+    assertThat(actual.filePath).as(line).isEqualTo(expected.filePath);
+    assertThat(actual.ruleKey).as(line).isEqualTo(expected.ruleKey);
+    assertThat(actual.message).as(line).isEqualTo(expected.message);
+    assertThat(actual.lineNumber).as(line).isEqualTo(expected.lineNumber);
+    assertThat(actual.columnNumber).as(line).isEqualTo(expected.columnNumber);
+  }
+
+  @Nullable
+  private static Issue parseWithPatterns(String line, int columnStartIndex) {
+    Matcher m = DEFAULT_PATTERN.matcher(line);
+    if (m.matches()) {
+      return new Issue(m.group(1), m.group(4), m.group(5), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)) - columnStartIndex);
+    }
+    m = LEGACY_PATTERN.matcher(line);
+    if (m.matches()) {
+      String ruleKey = m.group(3);
+      int keyLastIndex = ruleKey.indexOf("(");
+      if (keyLastIndex > 0) {
+        ruleKey = ruleKey.substring(0, keyLastIndex);
+      }
+      return new Issue(m.group(1), ruleKey, m.group(4), Integer.parseInt(m.group(2)), null);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.bandit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.plugins.python.bandit.BanditJsonReportReader.Issue;
+import org.sonarsource.analyzer.commons.internal.json.simple.parser.ParseException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BanditJsonReportReaderTest {
+
+  @Test
+  public void nested_values_are_ignored() throws IOException, ParseException {
+    String report = "{\"errors\": [], \"metrics\": {\"results\": [{\"test_id\": \"B000\"}]}, \"results\": [" +
+      "{\"code\": \"import os\", \"filename\": \"file1.py\", \"issue_confidence\": \"HIGH\", \"issue_severity\": \"LOW\"," +
+      " \"issue_text\": \"A message\", \"line_number\": 2, \"line_range\": [2, 3], \"more_info\": {\"test_id\": \"B999\"}, \"test_id\": \"B404\"}" +
+      "]}";
+    List<Issue> issues = new ArrayList<>();
+    BanditJsonReportReader.read(new ByteArrayInputStream(report.getBytes(UTF_8)), issues::add);
+
+    assertThat(issues).hasSize(1);
+    Issue issue = issues.get(0);
+    assertThat(issue.ruleKey).isEqualTo("B404");
+    assertThat(issue.filePath).isEqualTo("file1.py");
+    assertThat(issue.message).isEqualTo("A message");
+    assertThat(issue.lineNumber).isEqualTo(2);
+    assertThat(issue.severity).isEqualTo("LOW");
+    assertThat(issue.confidence).isEqualTo("HIGH");
+  }
+
+  @Test
+  public void no_results() throws IOException, ParseException {
+    List<Issue> issues = new ArrayList<>();
+    BanditJsonReportReader.read(new ByteArrayInputStream("[{\"results\": [{}]}]".getBytes(UTF_8)), issues::add);
+    assertThat(issues).isEmpty();
+  }
+}
@@ -20,37 +20,28 @@
 package org.sonar.plugins.python.caching;
 
 
-import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
-import org.sonar.plugins.python.api.caching.PythonReadCache;
-import org.sonar.plugins.python.api.caching.PythonWriteCache;
 import org.sonar.python.caching.CacheContextImpl;
 import org.sonar.python.caching.PythonReadCacheImpl;
 import org.sonar.python.caching.PythonWriteCacheImpl;
 import org.sonar.python.index.ClassDescriptor;
 import org.sonar.python.index.Descriptor;
-import org.sonar.python.index.DescriptorsToProtobuf;
 import org.sonar.python.index.FunctionDescriptor;
 import org.sonar.python.index.VariableDescriptor;
-import org.sonar.python.types.protobuf.DescriptorsProtos;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
-import static org.sonar.plugins.python.caching.Caching.IMPORTS_MAP_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX;
-import static org.sonar.python.index.DescriptorsToProtobuf.fromProtobuf;
+import static org.sonar.plugins.python.caching.Caching.FILE_RECORD_CACHE_KEY_PREFIX;
 
 public class CachingTest {
 
@@ -58,134 +49,148 @@ public class CachingTest {
   public LogTester logTester = new LogTester();
 
   private final static String CACHE_VERSION = "dummyVersion";
+  private static final byte[] CONTENT_HASH = new byte[] {1, 2, 3};
+  private static final Set<Descriptor> DESCRIPTORS = Set.of(
+    new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
+    new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
+    new VariableDescriptor("x", "mod.x", null)
+  );
 
+  private final TestWriteCache writeCache = new TestWriteCache();
+  private final TestReadCache readCache = new TestReadCache();
 
   @Test
-  public void writeProjectLevelSymbolTableEntry() throws InvalidProtocolBufferException {
-    TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    TestReadCache readCache = new TestReadCache();
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
-
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<Descriptor> initialDescriptors = Set.of(
-      new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
-      new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
-      new VariableDescriptor("x", "mod.x", null)
-    );
-    caching.writeProjectLevelSymbolTableEntry("mod", initialDescriptors);
-    Map<String, byte[]> data = writeCache.getData();
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
-    Set<Descriptor> retrievedDescriptors = fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(data.get(cacheKey)));
-    assertThat(cacheContext.isCacheEnabled()).isTrue();
-    assertThat(retrievedDescriptors).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(initialDescriptors);
+  public void writeFileRecord() throws IOException {
+    Caching caching = caching();
+    caching.writeFileRecord("mod", CONTENT_HASH, DESCRIPTORS);
+
+    assertThat(caching.isCacheEnabled()).isTrue();
+    assertThat(writeCache.getData()).containsOnlyKeys(FILE_RECORD_CACHE_KEY_PREFIX + "mod");
+    FileCacheRecord fileRecord = FileCacheRecord.fromBytes(writeCache.getData().get(FILE_RECORD_CACHE_KEY_PREFIX + "mod"));
+    assertThat(fileRecord.contentHash()).isEqualTo(CONTENT_HASH);
+    assertThat(caching.readProjectLevelSymbolTableEntry("mod", fileRecord))
+      .isNotNull()
+      .usingRecursiveFieldByFieldElementComparator()
+      .containsExactlyInAnyOrderElementsOf(DESCRIPTORS);
   }
 
-
   @Test
-  public void readProjectLevelSymbolTableEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    TestReadCache readCache = new TestReadCache();
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
-
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<Descriptor> initialDescriptors = Set.of(
-      new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
-      new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
-      new VariableDescriptor("x", "mod.x", null)
-    );
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
-    readCache.put(cacheKey, DescriptorsToProtobuf.toProtobufModuleDescriptor(initialDescriptors).toByteArray());
-    Set<Descriptor> retrievedDescriptorsOptional = caching.readProjectLevelSymbolTableEntry("mod");
-    assertThat(retrievedDescriptorsOptional).isNotNull().usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(initialDescriptors);
+  public void readFileRecord() {
+    Caching caching = caching();
+    caching.writeFileRecord("mod", CONTENT_HASH, DESCRIPTORS);
+    readCache.putAll(writeCache.getData());
+
+    FileCacheRecord fileRecord = caching.readFileRecord("mod");
+    assertThat(fileRecord).isNotNull();
+    assertThat(fileRecord.contentHash()).isEqualTo(CONTENT_HASH);
+    assertThat(caching.readProjectLevelSymbolTableEntry("mod", fileRecord))
+      .isNotNull()
+      .usingRecursiveFieldByFieldElementComparator()
+      .containsExactlyInAnyOrderElementsOf(DESCRIPTORS);
   }
 
   @Test
-  public void readProjectLevelSymbolTableMissingEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
-    TestReadCache readCache = new TestReadCache();
-    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+  public void readFileRecordWithContentHashOnly() {
+    Caching caching = caching();
+    caching.writeFileRecord("mod", CONTENT_HASH);
+    readCache.putAll(writeCache.getData());
+
+    FileCacheRecord fileRecord = caching.readFileRecord("mod");
+    assertThat(fileRecord).isNotNull();
+    assertThat(fileRecord.contentHash()).isEqualTo(CONTENT_HASH);
+    assertThat(caching.readProjectLevelSymbolTableEntry("mod", fileRecord)).isNull();
+  }
 
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readProjectLevelSymbolTableEntry("unknown")).isNull();
+  @Test
+  public void readFileRecordMissingEntry() {
+    assertThat(caching().readFileRecord("unknown")).isNull();
   }
 
   @Test
-  public void readProjectLevelSymbolTableIOException() throws IOException {
-    TestWriteCache writeCache = new TestWriteCache();
-    TestReadCache readCache = new TestReadCache();
+  public void readFileRecordIOException() throws IOException {
     InputStream inputStream = mock(InputStream.class);
     when(inputStream.readAllBytes()).thenThrow(new IOException("Boom!"));
     PythonReadCacheImpl pythonReadCache = Mockito.spy(new PythonReadCacheImpl(readCache));
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
+    String cacheKey = FILE_RECORD_CACHE_KEY_PREFIX + "mod";
     readCache.put(cacheKey, new byte[0]);
     Mockito.when(pythonReadCache.read(cacheKey)).thenReturn(inputStream);
 
     CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), pythonReadCache);
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readProjectLevelSymbolTableEntry("mod")).isNull();
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Unable to read data for key: \"python:descriptors:mod\"");
+    assertThat(caching.readFileRecord("mod")).isNull();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Unable to read data for key: \"python:file:mod\"");
   }
 
   @Test
-  public void writeImportsMapEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(new TestReadCache());
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
-
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
-
-    String cacheKey = IMPORTS_MAP_CACHE_KEY_PREFIX + "mod";
-    caching.writeImportsMapEntry("mod", imports);
-    Map<String, byte[]> data = writeCache.getData();
-    Set<String> retrievedDescriptors = Arrays.stream(new String(data.get(cacheKey), StandardCharsets.UTF_8).split(";")).collect(Collectors.toSet());
-    assertThat(retrievedDescriptors).containsExactlyInAnyOrderElementsOf(imports);
+  public void corruptedFileRecordInCache() {
+    Caching caching = caching();
+    readCache.put(FILE_RECORD_CACHE_KEY_PREFIX + "mod", new byte[] {1, 0, 0, 0, 0, 42});
+    assertThat(caching.readFileRecord("mod")).isNull();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize cache record for file: \"mod\"");
+
+    readCache.put(FILE_RECORD_CACHE_KEY_PREFIX + "other", new byte[] {42});
+    assertThat(caching.readFileRecord("other")).isNull();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize cache record for file: \"other\"");
   }
 
   @Test
-  public void readImportsMapEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
-    TestReadCache readCache = new TestReadCache();
-    writeCache.bind(readCache);
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
-
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
-    String cacheKey = IMPORTS_MAP_CACHE_KEY_PREFIX + "mod";
-    readCache.put(cacheKey, String.join(";", imports).getBytes(StandardCharsets.UTF_8));
-    assertThat(caching.readImportMapEntry("mod")).containsExactlyInAnyOrderElementsOf(imports);
+  public void corruptedDescriptorsInCache() {
+    Caching caching = caching();
+    FileCacheRecord fileRecord = new FileCacheRecord(CONTENT_HASH, new byte[] {42});
+    assertThat(caching.readProjectLevelSymbolTableEntry("mod", fileRecord)).isNull();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize project level symbol table entry for module: \"mod\"");
   }
 
   @Test
-  public void readImportsMissingEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
-    TestReadCache readCache = new TestReadCache();
-    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+  public void importGraph() {
+    Caching caching = caching();
+    Map<String, Set<String>> importsByFileKey = Map.of(
+      "mod1", Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4"),
+      "mod2", Set.of("pkg1.mod3"),
+      "mod3", Collections.emptySet());
+    caching.writeImportGraph(importsByFileKey);
+    readCache.putAll(writeCache.getData());
+
+    assertThat(caching.readImportGraph()).isEqualTo(importsByFileKey);
+  }
 
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readImportMapEntry("unknown")).isNull();
+  @Test
+  public void missingOrCorruptedImportGraph() {
+    Caching caching = caching();
+    assertThat(caching.readImportGraph()).isEmpty();
+
+    // A string table with a single string, and a file referencing an unknown index
+    readCache.put(Caching.IMPORT_GRAPH_KEY, new byte[] {1, 1, 'a', 1, 3, 0});
+    assertThat(caching.readImportGraph()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize cache entry: \"python:import_graph\"");
   }
 
   @Test
-  public void corruptedDataInCache() {
-    TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    TestReadCache readCache = new TestReadCache();
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
+  public void filesList() {
+    Caching caching = caching();
+    caching.writeFilesList(List.of("mod1", "pkg.mod2"));
+    caching.writeTypeshedModules(Set.of("math"));
+    readCache.putAll(writeCache.getData());
+
+    assertThat(caching.readFilesList()).containsExactlyInAnyOrder("mod1", "pkg.mod2");
+    assertThat(caching.readTypeshedModules()).containsExactly("math");
+
+    readCache.put(Caching.PROJECT_FILES_KEY, new byte[] {2, 1});
+    assertThat(caching.readFilesList()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize cache entry: \"python:files\"");
+  }
 
+  @Test
+  public void copyFromPrevious() {
+    Caching caching = caching();
+    writeCache.bind(readCache);
+    readCache.put(FILE_RECORD_CACHE_KEY_PREFIX + "mod", CONTENT_HASH);
+    caching.copyFromPrevious("mod");
+    assertThat(writeCache.getData()).containsOnlyKeys(FILE_RECORD_CACHE_KEY_PREFIX + "mod");
+  }
 
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    String module = "mod";
-    readCache.put(PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod", new byte[] {42});
-    assertThat(caching.readProjectLevelSymbolTableEntry(module)).isNull();
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to deserialize project level symbol table entry for module: \"mod\"");
+  private Caching caching() {
+    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+    return new Caching(cacheContext, CACHE_VERSION);
   }
 }
@@ -20,13 +20,17 @@
 package org.sonar.plugins.python.caching;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.sensor.cache.ReadCache;
 
 public class TestReadCache implements ReadCache {
   private final Map<String, byte[]> data = new HashMap<>();
+  private final Map<String, Set<String>> importGraph = new HashMap<>();
 
   @Override
   public InputStream read(String key) {
@@ -50,6 +54,21 @@ public class TestReadCache implements ReadCache {
     return this;
   }
 
+  public TestReadCache putFileRecord(String fileKey, byte[] contentHash) throws IOException {
+    return putFileRecord(fileKey, contentHash, null, null);
+  }
+
+  /**
+   * Also adds the imports of the file, if any, to the import graph entry.
+   */
+  public TestReadCache putFileRecord(String fileKey, byte[] contentHash, @Nullable Set<String> imports, @Nullable byte[] descriptors) throws IOException {
+    if (imports != null) {
+      importGraph.put(fileKey, imports);
+      put(Caching.IMPORT_GRAPH_KEY, CacheEncoding.encodeImportGraph(importGraph));
+    }
+    return put(Caching.fileRecordCacheKey(fileKey), new FileCacheRecord(contentHash, descriptors).toBytes());
+  }
+
   public TestReadCache putAll(Map<String, byte[]> data) {
     this.data.putAll(data);
     return this;
@@ -0,0 +1,117 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.plugins.python.coverage.CoberturaFileResolver.Resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CoberturaFileResolverTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final File moduleBaseDir = new File("src/test/resources/org/sonar/plugins/python/coverage-reports").getAbsoluteFile();
+  private final File sources = new File(moduleBaseDir, "sources");
+  private final File folder1 = new File(sources, "folder1");
+  private final File folder2 = new File(sources, "folder2");
+
+  @Test
+  public void resolve_against_indexed_files() {
+    DefaultFileSystem fileSystem = spy(new DefaultFileSystem(moduleBaseDir));
+    InputFile file1 = addInputFile(fileSystem, "sources/file1.py");
+    InputFile folder1File1 = addInputFile(fileSystem, "sources/folder1/file1.py");
+    addInputFile(fileSystem, "sources/folder1/file2.py");
+    addInputFile(fileSystem, "sources/folder2/file2.py");
+
+    CoberturaFileResolver resolver = new CoberturaFileResolver(fileSystem);
+    List<File> baseDirectories = Collections.singletonList(moduleBaseDir);
+    assertThat(resolver.resolve(baseDirectories, "sources/file1.py").inputFile()).isEqualTo(file1);
+    assertThat(resolver.resolve(baseDirectories, new File(sources, "file1.py").getAbsolutePath()).inputFile()).isEqualTo(file1);
+
+    List<File> multiSources = Arrays.asList(folder1, folder2);
+    assertThat(resolver.resolve(multiSources, "file1.py").inputFile()).isEqualTo(folder1File1);
+    Resolution ambiguous = resolver.resolve(multiSources, "file2.py");
+    assertThat(ambiguous.inputFile()).isNull();
+    assertThat(ambiguous.unresolvedMessage()).isEqualTo(CoberturaFileResolver.AMBIGUITY_MESSAGE);
+
+    Resolution notFound = resolver.resolve(baseDirectories, "sources/not_exist.py");
+    assertThat(notFound.inputFile()).isNull();
+    assertThat(notFound.unresolvedMessage()).isEqualTo(CoberturaFileResolver.NOT_FOUND_MESSAGE);
+    assertThat(resolver.resolve(baseDirectories, new File(sources, "not_exist.py").getAbsolutePath()).unresolvedMessage())
+      .isEqualTo(CoberturaFileResolver.NOT_FOUND_MESSAGE);
+
+    // resolutions are memoized
+    assertThat(resolver.resolve(multiSources, "file2.py")).isSameAs(ambiguous);
+    assertThat(resolver.resolve(baseDirectories, "sources/not_exist.py")).isSameAs(notFound);
+    // input files are only listed once
+    verify(fileSystem, times(1)).inputFiles(any());
+  }
+
+  @Test
+  public void existing_files_which_are_not_indexed_are_ignored() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem(moduleBaseDir);
+    addInputFile(fileSystem, "sources/folder1/file2.py");
+    CoberturaFileResolver resolver = new CoberturaFileResolver(fileSystem);
+
+    Resolution notIndexed = resolver.resolve(Collections.singletonList(moduleBaseDir), "sources/file1.py");
+    assertThat(notIndexed.inputFile()).isNull();
+    assertThat(notIndexed.unresolvedMessage()).isNull();
+    assertThat(resolver.resolve(Collections.singletonList(moduleBaseDir), new File(sources, "file1.py").getAbsolutePath()).unresolvedMessage()).isNull();
+
+    // the file exists in both sources but is only indexed in the first one
+    assertThat(resolver.resolve(Arrays.asList(folder1, folder2), "file2.py").unresolvedMessage()).isEqualTo(CoberturaFileResolver.AMBIGUITY_MESSAGE);
+    // the file exists in both sources but is not indexed at all
+    assertThat(resolver.resolve(Arrays.asList(sources, folder1), "file1.py").unresolvedMessage()).isEqualTo(CoberturaFileResolver.AMBIGUITY_MESSAGE);
+  }
+
+  @Test
+  public void directory_entries_are_read_once() throws IOException {
+    File baseDir = temporaryFolder.newFolder();
+    CoberturaFileResolver resolver = new CoberturaFileResolver(new DefaultFileSystem(baseDir));
+    List<File> baseDirectories = Collections.singletonList(baseDir);
+
+    assertThat(resolver.resolve(baseDirectories, "not_indexed.py").unresolvedMessage()).isEqualTo(CoberturaFileResolver.NOT_FOUND_MESSAGE);
+    assertThat(new File(baseDir, "created_later.py").createNewFile()).isTrue();
+    // the entries of the directory were read by the previous lookup
+    assertThat(resolver.resolve(baseDirectories, "created_later.py").unresolvedMessage()).isEqualTo(CoberturaFileResolver.NOT_FOUND_MESSAGE);
+  }
+
+  private InputFile addInputFile(DefaultFileSystem fileSystem, String relativePath) {
+    InputFile inputFile = TestInputFileBuilder.create("moduleKey", relativePath).setModuleBaseDir(moduleBaseDir.toPath()).build();
+    fileSystem.add(inputFile);
+    return inputFile;
+  }
+}
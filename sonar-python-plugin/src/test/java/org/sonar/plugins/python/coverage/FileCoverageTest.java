@@ -0,0 +1,97 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python.coverage;
+
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.coverage.NewCoverage;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class FileCoverageTest {
+
+  private static final InputFile FILE = TestInputFileBuilder.create("moduleKey", "file.py").setLines(300).build();
+
+  @Test
+  public void first_measure_of_a_line_wins() {
+    FileCoverage fileCoverage = new FileCoverage(FILE);
+    fileCoverage.lineHits(1, 2);
+    fileCoverage.lineHits(1, 5);
+    fileCoverage.conditions(1, 4, 1);
+    fileCoverage.conditions(1, 2, 2);
+
+    NewCoverage newCoverage = mock(NewCoverage.class);
+    fileCoverage.save(newCoverage);
+    verify(newCoverage).lineHits(1, 2);
+    verify(newCoverage).conditions(1, 4, 1);
+    verify(newCoverage).save();
+  }
+
+  @Test
+  public void merge_sums_hits_and_keeps_max_conditions() {
+    FileCoverage fileCoverage = new FileCoverage(FILE);
+    fileCoverage.lineHits(1, 2);
+    fileCoverage.conditions(1, 2, 1);
+    fileCoverage.lineHits(3, 0);
+
+    FileCoverage other = new FileCoverage(FILE);
+    other.lineHits(1, 3);
+    other.conditions(1, 4, 0);
+    other.lineHits(200, 1);
+    other.conditions(200, 2, 2);
+    fileCoverage.merge(other);
+    fileCoverage.merge(new FileCoverage(FILE));
+
+    NewCoverage newCoverage = mock(NewCoverage.class);
+    fileCoverage.save(newCoverage);
+    verify(newCoverage).lineHits(1, 5);
+    verify(newCoverage).conditions(1, 4, 1);
+    verify(newCoverage).lineHits(3, 0);
+    verify(newCoverage, never()).conditions(eq(3), anyInt(), anyInt());
+    verify(newCoverage).lineHits(200, 1);
+    verify(newCoverage).conditions(200, 2, 2);
+    verify(newCoverage).save();
+  }
+
+  @Test
+  public void invalid_line() {
+    FileCoverage fileCoverage = new FileCoverage(FILE);
+    assertThatThrownBy(() -> fileCoverage.lineHits(0, 1))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Line number must be strictly positive: 0");
+  }
+
+  @Test
+  public void line_out_of_range() {
+    FileCoverage fileCoverage = new FileCoverage(FILE);
+    fileCoverage.lineHits(300, 1);
+    assertThatThrownBy(() -> fileCoverage.lineHits(2_000_000_000, 1))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Line 2000000000 is out of range in the file file.py (lines: 300)");
+    assertThatThrownBy(() -> fileCoverage.conditions(Integer.MAX_VALUE, 2, 1))
+      .isInstanceOf(IllegalStateException.class);
+  }
+}
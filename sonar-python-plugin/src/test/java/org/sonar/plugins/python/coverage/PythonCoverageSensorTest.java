@@ -23,6 +23,7 @@ import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -280,6 +281,33 @@ public class PythonCoverageSensorTest {
     assertThat(context.coveredConditions(FILE4_KEY, 10)).isNull();
   }
 
+  @Test
+  public void test_merge_of_several_reports() throws Exception {
+    Path workDir = tmpDir.newFolder("reports").toPath().toAbsolutePath();
+    Path report = new File(moduleBaseDir, "coverage.xml").toPath();
+    List<String> reportPaths = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      Path reportCopy = workDir.resolve("coverage-" + i + ".xml");
+      Files.copy(report, reportCopy);
+      reportPaths.add(reportCopy.toString());
+    }
+    settings.setProperty(PythonCoverageSensor.REPORT_PATHS_KEY, String.join(",", reportPaths));
+
+    coverageSensor.execute(context);
+
+    assertThat(context.lineHits(FILE1_KEY, 1)).isEqualTo(3);
+    assertThat(context.lineHits(FILE1_KEY, 4)).isZero();
+    assertThat(context.lineHits(FILE2_KEY, 2)).isEqualTo(9);
+    assertThat(context.conditions(FILE2_KEY, 3)).isEqualTo(2);
+    assertThat(context.coveredConditions(FILE2_KEY, 3)).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_report_among_several_reports() {
+    settings.setProperty(PythonCoverageSensor.REPORT_PATHS_KEY, "coverage.xml,invalid-coverage-result.xml");
+    coverageSensor.execute(context);
+  }
+
   @Test(expected = IllegalStateException.class)
   public void should_fail_on_invalid_report() {
     settings.setProperty(PythonCoverageSensor.REPORT_PATHS_KEY, "invalid-coverage-result.xml");
@@ -24,17 +24,18 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.python.Python;
@@ -56,6 +57,9 @@ public class SonarLintPythonIndexerTest {
   @org.junit.Rule
   public LogTester logTester = new LogTester();
 
+  @org.junit.Rule
+  public TemporaryFolder workDir = new TemporaryFolder();
+
   InputFile file1;
   InputFile file2;
   TestModuleFileSystem moduleFileSystem;
@@ -65,8 +69,7 @@ public class SonarLintPythonIndexerTest {
   @Before
   public void init() throws IOException {
     context = SensorContextTester.create(baseDir);
-    Path workDir = Files.createTempDirectory("workDir");
-    context.fileSystem().setWorkDir(workDir);
+    context.fileSystem().setWorkDir(workDir.getRoot().toPath());
 
     file1 = inputFile("main.py");
     file2 = inputFile("mod.py");
@@ -98,6 +101,64 @@ public class SonarLintPythonIndexerTest {
     assertThat(projectLevelSymbolTable.getSymbol("added.new_func")).isNull();
   }
 
+  @Test
+  public void test_indexer_within_lines_budget() {
+    assertThat(file2.lines()).isLessThan(file1.lines());
+    context.setSettings(new MapSettings().setProperty("sonar.python.sonarlint.indexing.maxlines", file2.lines()));
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(moduleFileSystem);
+    indexer.buildOnce(context);
+
+    ProjectLevelSymbolTable symbolTable = indexer.projectLevelSymbolTable();
+    assertThat(symbolTable.getSymbolsFromModule("main")).isNull();
+    assertThat(symbolTable.getSymbolsFromModule("mod")).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(String.format(
+      "Project symbol table restricted to 1 files due to project size (total number of lines is %d, maximum for indexing is %d)",
+      file1.lines() + file2.lines(), file2.lines()));
+  }
+
+  @Test
+  public void test_indexer_reloads_unchanged_files_from_store() {
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(moduleFileSystem);
+    indexer.buildOnce(context);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(String.format(
+      "Project symbol table entries reloaded from \"%s\" for 2 out of 2 files.", context.fileSystem().workDir()));
+    assertThat(indexer.projectLevelSymbolTable().getSymbolsFromModule("main")).hasSize(1);
+    Symbol modAddSymbol = indexer.projectLevelSymbolTable().getSymbol("mod.add");
+    assertThat(modAddSymbol).isNotNull();
+    assertThat(modAddSymbol.is(Symbol.Kind.FUNCTION)).isTrue();
+    assertThat(indexer.getFileWithId(file1.absolutePath())).isEqualTo(file1);
+    assertThat(indexer.getFileWithId(file2.absolutePath())).isEqualTo(file2);
+  }
+
+  @Test
+  public void test_indexer_reindexes_modified_files() {
+    InputFile modifiedFile = TestInputFileBuilder.create("moduleKey", "mod.py")
+      .setModuleBaseDir(baseDir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(Python.KEY)
+      .setContents("def modified(): pass\n")
+      .build();
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(new TestModuleFileSystem(Arrays.asList(file1, modifiedFile)));
+    indexer.buildOnce(context);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(String.format(
+      "Project symbol table entries reloaded from \"%s\" for 1 out of 2 files.", context.fileSystem().workDir()));
+    assertThat(indexer.projectLevelSymbolTable().getSymbol("mod.add")).isNull();
+    assertThat(indexer.projectLevelSymbolTable().getSymbol("mod.modified")).isNotNull();
+  }
+
+  @Test
+  public void test_indexer_ignores_corrupted_store() throws IOException {
+    Files.write(context.fileSystem().workDir().toPath().resolve(SonarLintIndexStore.FILE_NAME), new byte[] {1, 2, 3});
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(moduleFileSystem);
+    indexer.buildOnce(context);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).anyMatch(log -> log.startsWith("Failed to read project symbol table store"));
+    assertThat(indexer.projectLevelSymbolTable().getSymbol("mod.add")).isNotNull();
+  }
+
   @Test
   public void test_indexer_removed_file() {
     ModuleFileEvent moduleFileEvent = mock(ModuleFileEvent.class);
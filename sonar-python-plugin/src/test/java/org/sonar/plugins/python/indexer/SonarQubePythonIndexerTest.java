@@ -28,7 +28,6 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import org.junit.Before;
@@ -42,6 +41,8 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.python.api.caching.PythonReadCache;
 import org.sonar.plugins.python.api.caching.PythonWriteCache;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.caching.CacheEncoding;
 import org.sonar.plugins.python.caching.TestReadCache;
 import org.sonar.plugins.python.caching.TestWriteCache;
 import org.sonar.python.caching.CacheContextImpl;
@@ -58,9 +59,7 @@ import static org.sonar.plugins.python.TestUtils.createInputFile;
 import static org.sonar.plugins.python.caching.Caching.CACHE_VERSION_KEY;
 import static org.sonar.plugins.python.caching.Caching.PROJECT_FILES_KEY;
 import static org.sonar.plugins.python.caching.Caching.TYPESHED_MODULES_KEY;
-import static org.sonar.plugins.python.caching.Caching.fileContentHashCacheKey;
-import static org.sonar.plugins.python.caching.Caching.importsMapCacheKey;
-import static org.sonar.plugins.python.caching.Caching.projectSymbolTableCacheKey;
+import static org.sonar.plugins.python.caching.Caching.fileRecordCacheKey;
 import static org.sonar.plugins.python.indexer.FileHashingUtils.inputFileContentHash;
 import static org.sonar.python.index.DescriptorsToProtobuf.toProtobufModuleDescriptor;
 
@@ -107,12 +106,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("mod"), serializedSymbolTable);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), outdatedEntry);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -137,12 +132,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py") , serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("unknown", "mod", "other"), serializedSymbolTable);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), outdatedEntry);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -164,12 +155,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
     readCache.put(PROJECT_FILES_KEY, importsAsByteArray(List.of("main", "mod")));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("unknown", "mod", "other"), serializedSymbolTable);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -181,8 +168,7 @@ public class SonarQubePythonIndexerTest {
       .contains("Partially optimized analysis can be performed for 1 out of 1 files.");
 
     byte[] bytes = writeCache.getData().get(PROJECT_FILES_KEY);
-    HashSet<String> retrievedFileList = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
-    assertThat(retrievedFileList).containsExactlyInAnyOrder("main");
+    assertThat(CacheEncoding.decodeStrings(bytes)).containsExactlyInAnyOrder("main");
   }
 
   @Test
@@ -193,12 +179,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
     readCache.put(PROJECT_FILES_KEY, importsAsByteArray(List.of("main", "mod")));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file1));
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file1), Collections.emptySet(), outdatedEntry);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -208,8 +190,7 @@ public class SonarQubePythonIndexerTest {
       .contains("Fully optimized analysis can be performed for 1 out of 1 files.");
 
     byte[] bytes = writeCache.getData().get(PROJECT_FILES_KEY);
-    HashSet<String> retrievedFileList = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
-    assertThat(retrievedFileList).containsExactlyInAnyOrder("mod");
+    assertThat(CacheEncoding.decodeStrings(bytes)).containsExactlyInAnyOrder("mod");
   }
 
   @Test
@@ -220,8 +201,8 @@ public class SonarQubePythonIndexerTest {
     List<InputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1));
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2));
     pythonIndexer.buildOnce(context);
 
     assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
@@ -241,10 +222,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), null, serializedSymbolTable);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), null, outdatedEntry);
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
@@ -264,10 +243,8 @@ public class SonarQubePythonIndexerTest {
 
     List<InputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("mod"), null);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), null);
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
@@ -292,12 +269,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("mod"), serializedSymbolTable);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), outdatedEntry);
 
     pythonIndexer.buildOnce(context);
 
@@ -322,12 +295,8 @@ public class SonarQubePythonIndexerTest {
 
     byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Set.of("mod"), serializedSymbolTable);
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), outdatedEntry);
 
     pythonIndexer.buildOnce(context);
 
@@ -343,7 +312,7 @@ public class SonarQubePythonIndexerTest {
   public void test_test_files_not_using_cache() throws IOException, NoSuchAlgorithmException {
     file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.TEST);
     file2 = createInputFile(baseDir, "mod.py", InputFile.Status.CHANGED, InputFile.Type.TEST);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), inputFileContentHash(file1));
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1));
 
     List<InputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
@@ -408,7 +377,7 @@ public class SonarQubePythonIndexerTest {
   }
 
   @Test
-  public void test_typeshed_modules_cached() {
+  public void test_typeshed_modules_cached() throws IOException {
     file1 = createInputFile(baseDir, "uses_typeshed.py", InputFile.Status.CHANGED, InputFile.Type.MAIN);
 
     List<InputFile> inputFiles = new ArrayList<>(List.of(file1));
@@ -419,8 +388,27 @@ public class SonarQubePythonIndexerTest {
     assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
 
     byte[] bytes = writeCache.getData().get(TYPESHED_MODULES_KEY);
-    Set<String> resolvedTypeshedModules = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
-    assertThat(resolvedTypeshedModules).containsExactlyInAnyOrder("math");
+    assertThat(CacheEncoding.decodeStrings(bytes)).containsExactlyInAnyOrder("math");
+  }
+
+  @Test
+  public void test_cached_typeshed_modules_loaded_lazily() throws IOException, NoSuchAlgorithmException {
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.CHANGED, InputFile.Type.MAIN);
+
+    List<InputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
+
+    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
+    readCache.putFileRecord("moduleKey:main.py", inputFileContentHash(file1), Collections.emptySet(), serializedSymbolTable);
+    readCache.put(TYPESHED_MODULES_KEY, CacheEncoding.encodeStrings(List.of("math")));
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    assertThat(pythonIndexer.canBeFullyScannedWithoutParsing(file1)).isTrue();
+    // Modules used by skipped files are kept for the next analysis, without being loaded
+    byte[] bytes = writeCache.getData().get(TYPESHED_MODULES_KEY);
+    assertThat(CacheEncoding.decodeStrings(bytes)).containsExactly("math");
+    assertThat(TypeShed.stubFilesSymbols()).extracting(Symbol::fullyQualifiedName).contains("math.sqrt");
   }
 
   @Test
@@ -456,7 +444,7 @@ public class SonarQubePythonIndexerTest {
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
-    assertThat(writeCache.getData().containsKey(projectSymbolTableCacheKey("moduleKey:parse_error.py"))).isFalse();
+    assertThat(writeCache.getData().containsKey(fileRecordCacheKey("moduleKey:parse_error.py"))).isFalse();
   }
 
   @Test
@@ -467,9 +455,7 @@ public class SonarQubePythonIndexerTest {
     List<InputFile> inputFiles = new ArrayList<>(List.of(file1));
 
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file2));
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file2), Collections.emptySet(), outdatedEntry);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -498,9 +484,7 @@ public class SonarQubePythonIndexerTest {
 
     List<InputFile> inputFiles = new ArrayList<>(List.of(file1));
     byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), inputFileContentHash(file1));
+    readCache.putFileRecord("moduleKey:mod.py", inputFileContentHash(file1), Collections.emptySet(), outdatedEntry);
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
 
@@ -512,7 +496,7 @@ public class SonarQubePythonIndexerTest {
     assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
   }
 
-  private byte[] importsAsByteArray(List<String> mod) {
-    return String.join(";", mod).getBytes(StandardCharsets.UTF_8);
+  private byte[] importsAsByteArray(List<String> mod) throws IOException {
+    return CacheEncoding.encodeStrings(mod);
   }
 }
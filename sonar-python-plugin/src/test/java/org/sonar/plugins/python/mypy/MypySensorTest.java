@@ -24,7 +24,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.junit.Rule;
@@ -45,6 +49,7 @@ import org.sonar.api.rules.RuleType;
 import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.plugins.python.TextReportReader;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -196,6 +201,58 @@ public class MypySensorTest {
     assertThat(onlyOneLogElement(logTester.logs(LoggerLevel.DEBUG))).isEqualTo("Cannot parse the line: this is not a mypy output");
   }
 
+  @Test
+  public void hand_written_parser_is_consistent_with_pattern() {
+    List<String> lines = new ArrayList<>(Arrays.asList(
+      "mypy/file.py:3: error: Incompatible types [assignment]",
+      "mypy/file.py:3:5: error: Incompatible types [assignment]  ",
+      "mypy/file.py:3:5:3:9: error: Incompatible types [assignment]",
+      "mypy/file.py:3:5:3: error: message",
+      "mypy/file.py:3:5:3:9:1: error: message",
+      "mypy/file.py:3: error: Name \"x\" is not defined [name-defined] [other]",
+      "mypy/file.py:3: error: List item 0 has type [int]; expected [str]  [list-item]",
+      "mypy/file.py:3: error: no code",
+      "mypy/file.py:3: error:",
+      "mypy/file.py:3: error: ",
+      "mypy/file.py:3: error: : colon message",
+      "mypy/file.py:3: error : message",
+      "mypy/file.py:3: e: message",
+      "mypy/file.py:3: error:: message",
+      "mypy/file.py:3: note: See https://mypy.readthedocs.io",
+      "mypy/file.py:3: error: message\t[tab]",
+      "mypy/file.py:3: error: ]",
+      "mypy/file.py: error: message",
+      ":3: error: message",
+      "this is not a mypy output"));
+    String[] fragments = {"f.py", ":", "3", " ", "error", "note", "[", "]", "code", "\t", "x"};
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder line = new StringBuilder(i % 2 == 0 ? "f.py:1:" : "");
+      int length = random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        line.append(fragments[random.nextInt(fragments.length)]);
+      }
+      lines.add(line.toString());
+    }
+
+    Pattern pattern = Pattern.compile(
+      "^(?<file>[^:]+):(?<startLine>\\d+)(?::(?<startCol>\\d+))?(?::\\d+:\\d+)?: (?<severity>\\S+[^:]): (?<message>.*?)(?: \\[(?<code>.*)])?\\s*$");
+    for (String line : lines) {
+      TextReportReader.Issue issue = MypySensor.parseLine(line);
+      Matcher m = pattern.matcher(line);
+      if (!m.matches() || !"error".equals(m.group("severity"))) {
+        assertThat(issue).as(line).isNull();
+        continue;
+      }
+      assertThat(issue).as(line).isNotNull();
+      assertThat(issue.filePath).as(line).isEqualTo(m.group("file"));
+      assertThat(issue.lineNumber).as(line).isEqualTo(Integer.parseInt(m.group("startLine")));
+      assertThat(issue.columnNumber).as(line).isEqualTo(m.group("startCol") == null ? null : (Integer.parseInt(m.group("startCol")) - 1));
+      assertThat(issue.message).as(line).isEqualTo(m.group("message"));
+      assertThat(issue.ruleKey).as(line).isEqualTo(m.group("code") == null ? "unknown_mypy_rule" : m.group("code"));
+    }
+  }
+
   private static void assertIssue(ExternalIssue issue, String key, String message, int startLine, int startColumn, int endLine, int endColumn) {
     IssueLocation location = issue.primaryLocation();
     assertThat(issue.type()).isEqualTo(RuleType.CODE_SMELL);
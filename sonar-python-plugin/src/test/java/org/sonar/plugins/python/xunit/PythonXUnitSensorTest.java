@@ -37,6 +37,7 @@ import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -85,6 +86,22 @@ public class PythonXUnitSensorTest {
     assertThat(measure(testFile2, CoreMetrics.TEST_FAILURES)).isEqualTo(1);
   }
 
+  @Test
+  public void shouldLookupResourcesOncePerTestClass() {
+    fs = spy(fs);
+    sensor = new PythonXUnitSensor(new ConfigurationBridge(settings), fs, analysisWarnings);
+    DefaultInputFile testFile1 = TestInputFileBuilder.create("", FILE_SAMPLE1).build();
+    DefaultInputFile testFile2 = TestInputFileBuilder.create("", FILE_SAMPLE2).build();
+    fs.add(testFile1);
+    fs.add(testFile2);
+    sensor.execute(context);
+
+    assertThat(measure(testFile1, CoreMetrics.TESTS)).isEqualTo(3);
+    assertThat(measure(testFile2, CoreMetrics.TESTS)).isEqualTo(3);
+    // 4 test classes, 2 of them need a second lookup with the nose tests strategy
+    verify(fs, times(6)).inputFile(any());
+  }
+
   @Test
   public void shouldSaveCorrectMeasuresSimpleMode() {
     settings.setProperty(PythonXUnitSensor.SKIP_DETAILS, true);